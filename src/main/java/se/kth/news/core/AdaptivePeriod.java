@@ -0,0 +1,23 @@
+package se.kth.news.core;
+
+/**
+ * Round period that drops to its minimum while there is work to do and doubles,
+ * up to its maximum, for every quiet round.
+ */
+public class AdaptivePeriod {
+
+    private final long minPeriod;
+    private final long maxPeriod;
+    private long period;
+
+    public AdaptivePeriod(long minPeriod, long maxPeriod) {
+        this.minPeriod = minPeriod;
+        this.maxPeriod = maxPeriod;
+        this.period = minPeriod;
+    }
+
+    public long next(boolean active) {
+        period = active ? minPeriod : Math.min(maxPeriod, 2 * period);
+        return period;
+    }
+}
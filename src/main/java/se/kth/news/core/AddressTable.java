@@ -0,0 +1,40 @@
+package se.kth.news.core;
+
+import io.netty.buffer.ByteBuf;
+import se.sics.ktoolbox.util.network.KAddress;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-message address interning: the first occurrence of an address is written in full, every
+ * repetition as a varint back-reference. Use one instance to write or to read a single message.
+ */
+public class AddressTable {
+
+    private final Map<KAddress, Integer> written = new HashMap<>();
+    private final List<KAddress> read = new ArrayList<>();
+
+    public void write(ByteBuf buf, KAddress adr) {
+        Integer index = written.get(adr);
+        if (index != null) {
+            SerializerHelper.writeVarInt(buf, index + 1);
+        } else {
+            SerializerHelper.writeVarInt(buf, 0);
+            SerializerHelper.writeAddress(buf, adr);
+            written.put(adr, written.size());
+        }
+    }
+
+    public KAddress read(ByteBuf buf) {
+        int ref = SerializerHelper.readVarInt(buf);
+        if (ref > 0) {
+            return read.get(ref - 1);
+        }
+        KAddress adr = SerializerHelper.readAddress(buf);
+        read.add(adr);
+        return adr;
+    }
+}
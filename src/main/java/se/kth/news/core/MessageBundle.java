@@ -0,0 +1,15 @@
+package se.kth.news.core;
+
+import java.util.List;
+
+/**
+ * Several payloads for the same destination sent under one header, unpacked by SubComponent on arrival.
+ */
+public class MessageBundle {
+
+    public final List<Object> payloads;
+
+    public MessageBundle(List<Object> payloads) {
+        this.payloads = payloads;
+    }
+}
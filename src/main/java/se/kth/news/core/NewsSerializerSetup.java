@@ -0,0 +1,92 @@
+package se.kth.news.core;
+
+import se.kth.news.core.epfd.EPFDSerializer;
+import se.kth.news.core.epfd.HeartbeatReply;
+import se.kth.news.core.epfd.HeartbeatRequest;
+import se.kth.news.core.leader.Leader2PC;
+import se.kth.news.core.leader.LeaderLease;
+import se.kth.news.core.leader.LeaderPull;
+import se.kth.news.core.leader.LeaderPush;
+import se.kth.news.core.leader.LeaderSerializer;
+import se.kth.news.core.news.NewsBatch;
+import se.kth.news.core.news.NewsNack;
+import se.kth.news.core.news.NewsPull;
+import se.kth.news.core.news.NewsPush;
+import se.kth.news.core.news.NewsRepair;
+import se.kth.news.core.news.NewsReplica;
+import se.kth.news.core.news.NewsRumor;
+import se.kth.news.core.news.NewsSerializer;
+import se.kth.news.core.news.PublishAck;
+import se.kth.news.core.news.util.NewsView;
+import se.kth.news.core.news.util.NewsViewSerializer;
+import se.kth.news.newsitem.NewsItemSerializer;
+import se.kth.news.newsitem.Ping;
+import se.kth.news.newsitem.Pong;
+import se.sics.kompics.network.netty.serialization.Serializers;
+
+/**
+ * Registers the binary serializers of the application messages with the netty network.
+ * The ktoolbox serializers (addresses, identifiers) have to be registered before these.
+ */
+public class NewsSerializerSetup {
+
+    public static int serializerIds = 6;
+
+    public static enum NewsSerializers {
+
+        NewsView(NewsView.class, "newsViewSerializer"),
+        Ping(Ping.class, "newsItemSerializer"),
+        Pong(Pong.class, "newsItemSerializer"),
+        NewsPull(NewsPull.class, "newsSerializer"),
+        NewsPush(NewsPush.class, "newsSerializer"),
+        PublishAck(PublishAck.class, "newsSerializer"),
+        NewsBatch(NewsBatch.class, "newsSerializer"),
+        NewsNack(NewsNack.class, "newsSerializer"),
+        NewsRepair(NewsRepair.class, "newsSerializer"),
+        NewsRumor(NewsRumor.class, "newsSerializer"),
+        NewsReplica(NewsReplica.class, "newsSerializer"),
+        Leader2PC(Leader2PC.class, "leaderSerializer"),
+        LeaderPull(LeaderPull.class, "leaderSerializer"),
+        LeaderPush(LeaderPush.class, "leaderSerializer"),
+        LeaderLease(LeaderLease.class, "leaderSerializer"),
+        HeartbeatRequest(HeartbeatRequest.class, "epfdSerializer"),
+        HeartbeatReply(HeartbeatReply.class, "epfdSerializer"),
+        MessageBundle(MessageBundle.class, "transportSerializer"),
+        Relay(Relay.class, "transportSerializer"),
+        RelayAck(RelayAck.class, "transportSerializer");
+
+        public final Class serializedClass;
+        public final String serializerName;
+
+        NewsSerializers(Class serializedClass, String serializerName) {
+            this.serializedClass = serializedClass;
+            this.serializerName = serializerName;
+        }
+    }
+
+    public static void checkSetup() {
+        for (NewsSerializers ns : NewsSerializers.values()) {
+            if (Serializers.lookupSerializer(ns.serializedClass) == null) {
+                throw new RuntimeException("missing serializer:" + ns.serializedClass);
+            }
+        }
+    }
+
+    public static int registerSerializers(int startingId) {
+        int currentId = startingId;
+
+        Serializers.register(new NewsViewSerializer(currentId++), "newsViewSerializer");
+        Serializers.register(new NewsItemSerializer(currentId++), "newsItemSerializer");
+        Serializers.register(new NewsSerializer(currentId++), "newsSerializer");
+        Serializers.register(new LeaderSerializer(currentId++), "leaderSerializer");
+        Serializers.register(new EPFDSerializer(currentId++), "epfdSerializer");
+        Serializers.register(new TransportSerializer(currentId++), "transportSerializer");
+
+        for (NewsSerializers ns : NewsSerializers.values()) {
+            Serializers.register(ns.serializedClass, ns.serializerName);
+        }
+
+        assert startingId + serializerIds == currentId;
+        return currentId;
+    }
+}
@@ -0,0 +1,11 @@
+package se.kth.news.core;
+
+import se.sics.kompics.timer.ScheduleTimeout;
+import se.sics.kompics.timer.Timeout;
+
+public class OutboxFlushTimeout extends Timeout {
+
+    protected OutboxFlushTimeout(ScheduleTimeout st) {
+        super(st);
+    }
+}
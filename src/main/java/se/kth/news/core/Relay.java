@@ -0,0 +1,25 @@
+package se.kth.news.core;
+
+import se.sics.ktoolbox.util.network.KAddress;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * One hop of a relayed broadcast: the receiver delivers the payload as if sent by origin,
+ * then relays it on to the targets it is responsible for.
+ */
+public class Relay {
+
+    public final UUID id;                // the broadcast, acknowledged back up the tree
+    public final KAddress origin;
+    public final Object payload;
+    public final List<KAddress> targets; // the receiver's subtree only, itself excluded
+
+    public Relay(UUID id, KAddress origin, Object payload, List<KAddress> targets) {
+        this.id = id;
+        this.origin = origin;
+        this.payload = payload;
+        this.targets = targets;
+    }
+}
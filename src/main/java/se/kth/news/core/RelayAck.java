@@ -0,0 +1,21 @@
+package se.kth.news.core;
+
+import se.sics.ktoolbox.util.network.KAddress;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Nodes of a subtree a relayed broadcast did not reach, aggregated on the way back to the origin.
+ * Empty while every relay is alive, so acks stay small however large the subtree.
+ */
+public class RelayAck {
+
+    public final UUID id;
+    public final Set<KAddress> missed;
+
+    public RelayAck(UUID id, Set<KAddress> missed) {
+        this.id = id;
+        this.missed = missed;
+    }
+}
@@ -0,0 +1,16 @@
+package se.kth.news.core;
+
+import se.sics.kompics.timer.ScheduleTimeout;
+import se.sics.kompics.timer.Timeout;
+
+import java.util.UUID;
+
+public class RelayAckTimeout extends Timeout {
+
+    public final UUID relayId;
+
+    protected RelayAckTimeout(ScheduleTimeout st, UUID relayId) {
+        super(st);
+        this.relayId = relayId;
+    }
+}
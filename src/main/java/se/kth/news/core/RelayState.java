@@ -0,0 +1,27 @@
+package se.kth.news.core;
+
+import se.sics.ktoolbox.util.network.KAddress;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Acknowledgements still awaited by one node of a relayed broadcast.
+ */
+public class RelayState {
+
+    public final KAddress parent;  // null at the origin
+    public final Object payload;   // origin only, resent directly to the nodes a failed relay cut off
+    public final Map<KAddress, List<KAddress>> children = new HashMap<>(); // relayed to, not yet acknowledged -> subtree
+    public final Set<KAddress> missed = new HashSet<>();
+    public UUID timeoutId;
+
+    public RelayState(KAddress parent, Object payload) {
+        this.parent = parent;
+        this.payload = payload;
+    }
+}
@@ -0,0 +1,176 @@
+package se.kth.news.core;
+
+import com.google.common.base.Optional;
+import io.netty.buffer.ByteBuf;
+import se.kth.news.core.news.util.NewsView;
+import se.kth.news.core.news.util.NodeCapacity;
+import se.kth.news.core.news.util.SeqRangeSet;
+import se.sics.kompics.network.netty.serialization.Serializers;
+import se.sics.ktoolbox.util.identifiable.Identifier;
+import se.sics.ktoolbox.util.identifiable.basic.IntIdentifier;
+import se.sics.ktoolbox.util.network.KAddress;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Shared wire encodings. Counts, seqs and other small non-negative numbers go out as
+ * unsigned LEB128 varints, so the common values take a single byte.
+ */
+public class SerializerHelper {
+
+    public static void writeVarInt(ByteBuf buf, int value) {
+        while ((value & ~0x7F) != 0) {
+            buf.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf.writeByte(value);
+    }
+
+    public static int readVarInt(ByteBuf buf) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = buf.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("malformed varint");
+    }
+
+    public static void writeVarLong(ByteBuf buf, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buf.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buf.writeByte((int) value);
+    }
+
+    public static long readVarLong(ByteBuf buf) {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            int b = buf.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("malformed varint");
+    }
+
+    // zigzag keeps small negative values short as well
+    public static void writeSignedVarInt(ByteBuf buf, int value) {
+        writeVarInt(buf, (value << 1) ^ (value >> 31));
+    }
+
+    public static int readSignedVarInt(ByteBuf buf) {
+        int value = readVarInt(buf);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    // IntIdentifiers, the only kind this application creates, go out as a varint instead of through the registry
+    public static void writeIdentifier(ByteBuf buf, Identifier id) {
+        if (id instanceof IntIdentifier) {
+            buf.writeByte(0);
+            writeSignedVarInt(buf, ((IntIdentifier) id).id);
+        } else {
+            buf.writeByte(1);
+            Serializers.toBinary(id, buf);
+        }
+    }
+
+    public static Identifier readIdentifier(ByteBuf buf) {
+        if (buf.readByte() == 0) {
+            return new IntIdentifier(readSignedVarInt(buf));
+        }
+        return (Identifier) Serializers.fromBinary(buf, Optional.absent());
+    }
+
+    // null is written as length 0, the empty string as length 1
+    public static void writeString(ByteBuf buf, String s) {
+        if (s == null) {
+            writeVarInt(buf, 0);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(buf, bytes.length + 1);
+        buf.writeBytes(bytes);
+    }
+
+    public static String readString(ByteBuf buf) {
+        int length = readVarInt(buf);
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length - 1];
+        buf.readBytes(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // ranges are delta encoded against the end of the previous one
+    public static void writeSeqRanges(ByteBuf buf, SeqRangeSet seqs) {
+        writeVarInt(buf, seqs.ranges());
+        int last = 0;
+        for (int r = 0; r < seqs.ranges(); r++) {
+            if (r == 0) {
+                writeSignedVarInt(buf, seqs.from(r));
+            } else {
+                writeVarInt(buf, seqs.from(r) - last);
+            }
+            writeVarInt(buf, seqs.to(r) - seqs.from(r));
+            last = seqs.to(r);
+        }
+    }
+
+    public static SeqRangeSet readSeqRanges(ByteBuf buf) {
+        SeqRangeSet seqs = new SeqRangeSet();
+        int ranges = readVarInt(buf);
+        int last = 0;
+        for (int r = 0; r < ranges; r++) {
+            int from = r == 0 ? readSignedVarInt(buf) : last + readVarInt(buf);
+            int to = from + readVarInt(buf);
+            seqs.addRange(from, to);
+            last = to;
+        }
+        return seqs;
+    }
+
+    public static void writeUUID(ByteBuf buf, UUID id) {
+        buf.writeLong(id.getMostSignificantBits());
+        buf.writeLong(id.getLeastSignificantBits());
+    }
+
+    public static UUID readUUID(ByteBuf buf) {
+        return new UUID(buf.readLong(), buf.readLong());
+    }
+
+    public static void writeAddress(ByteBuf buf, KAddress adr) {
+        Serializers.toBinary(adr, buf);
+    }
+
+    public static KAddress readAddress(ByteBuf buf) {
+        return (KAddress) Serializers.fromBinary(buf, Optional.absent());
+    }
+
+    public static void writeView(ByteBuf buf, NewsView view) {
+        writeIdentifier(buf, view.nodeId);
+        writeVarInt(buf, view.localNewsCount);
+        buf.writeDouble(view.capacity.spareCpu);
+        buf.writeDouble(view.capacity.bandwidth);
+        writeVarLong(buf, view.capacity.uptime);
+        writeVarInt(buf, view.capacity.queueDepth);
+        buf.writeDouble(view.utility);
+    }
+
+    public static NewsView readView(ByteBuf buf) {
+        Identifier nodeId = readIdentifier(buf);
+        int localNewsCount = readVarInt(buf);
+        double spareCpu = buf.readDouble();
+        double bandwidth = buf.readDouble();
+        long uptime = readVarLong(buf);
+        int queueDepth = readVarInt(buf);
+        double utility = buf.readDouble();
+        return new NewsView(nodeId, localNewsCount, new NodeCapacity(spareCpu, bandwidth, uptime, queueDepth), utility);
+    }
+}
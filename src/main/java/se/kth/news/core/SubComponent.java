@@ -1,9 +1,13 @@
 package se.kth.news.core;
 
+import se.sics.kompics.ClassMatchedHandler;
 import se.sics.kompics.ComponentDefinition;
+import se.sics.kompics.Handler;
 import se.sics.kompics.Positive;
 import se.sics.kompics.network.Network;
 import se.sics.kompics.network.Transport;
+import se.sics.kompics.timer.CancelTimeout;
+import se.sics.kompics.timer.ScheduleTimeout;
 import se.sics.kompics.timer.Timer;
 import se.sics.ktoolbox.util.network.KAddress;
 import se.sics.ktoolbox.util.network.KContentMsg;
@@ -11,7 +15,13 @@ import se.sics.ktoolbox.util.network.KHeader;
 import se.sics.ktoolbox.util.network.basic.BasicContentMsg;
 import se.sics.ktoolbox.util.network.basic.BasicHeader;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 
 public abstract class SubComponent extends ComponentDefinition {
 
@@ -20,16 +30,205 @@ public abstract class SubComponent extends ComponentDefinition {
     protected Positive<Network> networkPort = requires(Network.class);
     //*******************************EXTERNAL_STATE*****************************
     protected KAddress selfAdr;
+    //*******************************INTERNAL_STATE*****************************
+    private final boolean coalesce;   // buffer payloads per destination and send them as one bundle
+    private final long flushInterval; // ms the buffer is held, 0 flushes once the current handler is done
+    private Map<KAddress, List<Object>> outbox = new LinkedHashMap<>();
+    private UUID flushTimeoutId;
+    private Map<Class, List<ClassMatchedHandler>> networkHandlers = new HashMap<>(); // content class -> handlers
+    private final int relayFanout;      // children per relay hop, 1 builds a chain, 0 sends broadcasts as one unicast per node
+    private final long relayAckTimeout; // ms per tree level a relayed broadcast waits for its subtree
+    private Map<UUID, RelayState> relays = new HashMap<>();
+
+    protected SubComponent() {
+        coalesce = config().getValue("outbound.coalesce", Boolean.class);
+        flushInterval = config().getValue("outbound.flushInterval", Long.class);
+        relayFanout = config().getValue("broadcast.fanout", Integer.class);
+        relayAckTimeout = config().getValue("broadcast.ackTimeout", Long.class);
+
+        subscribe(handleOutboxFlush, timerPort);
+        subscribe(handleRelayAckTimeout, timerPort);
+        subscribe(handleBundle, networkPort);
+        subscribeNetwork(handleRelay, Relay.class);
+        subscribeNetwork(handleRelayAck, RelayAck.class);
+    }
+
+    /**
+     * Subscribes a network handler so that it also sees the payloads arriving inside a MessageBundle.
+     */
+    protected <C> void subscribeNetwork(ClassMatchedHandler<C, ?> handler, Class<C> contentClass) {
+        subscribe(handler, networkPort);
+        List<ClassMatchedHandler> handlers = networkHandlers.get(contentClass);
+        if (handlers == null) {
+            handlers = new ArrayList<>();
+            networkHandlers.put(contentClass, handlers);
+        }
+        handlers.add(handler);
+    }
 
     protected void triggerSend(KAddress node, Object content) {
-        KHeader header = new BasicHeader(selfAdr, node, Transport.UDP);
-        KContentMsg msg = new BasicContentMsg(header, content);
-        trigger(msg, networkPort);
+        if (!coalesce) {
+            send(node, content);
+            return;
+        }
+        List<Object> payloads = outbox.get(node);
+        if (payloads == null) {
+            payloads = new ArrayList<>();
+            outbox.put(node, payloads);
+        }
+        payloads.add(content);
+        if (flushTimeoutId == null) {
+            ScheduleTimeout st = new ScheduleTimeout(flushInterval);
+            OutboxFlushTimeout ft = new OutboxFlushTimeout(st);
+            st.setTimeoutEvent(ft);
+            trigger(st, timerPort);
+            flushTimeoutId = ft.getTimeoutId();
+        }
     }
 
+    /**
+     * Delivers content to all nodes, through a relay tree when broadcast.fanout is set,
+     * so this node sends O(fanout) messages instead of one per node. Subtrees acknowledge delivery
+     * back up the tree, and the nodes below a failed relay get the content directly from this node.
+     */
     protected void triggerBroadcast(Set<KAddress> nodes, Object content) {
-        for (KAddress n : nodes) {
-            triggerSend(n, content);
+        if (relayFanout <= 0 || nodes.size() <= relayFanout) {
+            for (KAddress n : nodes) {
+                triggerSend(n, content);
+            }
+        } else {
+            relay(UUID.randomUUID(), null, selfAdr, content, new ArrayList<>(nodes));
+        }
+    }
+
+    Handler handleOutboxFlush = new Handler<OutboxFlushTimeout>() {
+        @Override
+        public void handle(OutboxFlushTimeout timeout) {
+            if (!timeout.getTimeoutId().equals(flushTimeoutId)) {
+                return; // the timer port is shared, this one belongs to another component
+            }
+            flushTimeoutId = null;
+            Map<KAddress, List<Object>> flushed = outbox;
+            outbox = new LinkedHashMap<>();
+            for (Map.Entry<KAddress, List<Object>> e : flushed.entrySet()) {
+                List<Object> payloads = e.getValue();
+                send(e.getKey(), payloads.size() == 1 ? payloads.get(0) : new MessageBundle(payloads));
+            }
+        }
+    };
+
+    ClassMatchedHandler handleBundle
+            = new ClassMatchedHandler<MessageBundle, KContentMsg<?, ?, MessageBundle>>() {
+        @Override
+        public void handle(MessageBundle content, KContentMsg<?, ?, MessageBundle> container) {
+            for (Object payload : content.payloads) {
+                deliverLocally(container.getHeader(), payload);
+            }
+        }
+    };
+
+    ClassMatchedHandler handleRelay
+            = new ClassMatchedHandler<Relay, KContentMsg<?, ?, Relay>>() {
+        @Override
+        public void handle(Relay content, KContentMsg<?, ?, Relay> container) {
+            if (!networkHandlers.containsKey(content.payload.getClass())) {
+                return; // every component on the node sees the relay, the one handling the payload forwards it
+            }
+            // handlers see the origin as sender, whichever node relayed the payload to us
+            deliverLocally(new BasicHeader(content.origin, selfAdr, Transport.UDP), content.payload);
+            relay(content.id, container.getHeader().getSource(), content.origin, content.payload, content.targets);
+        }
+    };
+
+    ClassMatchedHandler handleRelayAck
+            = new ClassMatchedHandler<RelayAck, KContentMsg<?, ?, RelayAck>>() {
+        @Override
+        public void handle(RelayAck content, KContentMsg<?, ?, RelayAck> container) {
+            RelayState state = relays.get(content.id);
+            if (state != null && state.children.remove(container.getHeader().getSource()) != null) {
+                state.missed.addAll(content.missed);
+                if (state.children.isEmpty()) {
+                    completeRelay(content.id, state);
+                }
+            }
         }
+    };
+
+    Handler handleRelayAckTimeout = new Handler<RelayAckTimeout>() {
+        @Override
+        public void handle(RelayAckTimeout timeout) {
+            RelayState state = relays.get(timeout.relayId);
+            if (state != null && timeout.getTimeoutId().equals(state.timeoutId)) {
+                state.timeoutId = null;
+                // children that never answered count as failed, together with their whole subtree
+                for (Map.Entry<KAddress, List<KAddress>> e : state.children.entrySet()) {
+                    state.missed.add(e.getKey());
+                    state.missed.addAll(e.getValue());
+                }
+                state.children.clear();
+                completeRelay(timeout.relayId, state);
+            }
+        }
+    };
+
+    private void deliverLocally(KHeader header, Object payload) {
+        List<ClassMatchedHandler> handlers = networkHandlers.get(payload.getClass());
+        if (handlers == null) {
+            return; // meant for another component on this node
+        }
+        KContentMsg msg = new BasicContentMsg(header, payload);
+        for (ClassMatchedHandler handler : handlers) {
+            handler.handle(payload, msg);
+        }
+    }
+
+    // splits targets into fanout subtrees, the first node of each relays to the rest of it
+    private void relay(UUID id, KAddress parent, KAddress origin, Object payload, List<KAddress> targets) {
+        int fanout = relayFanout > 0 ? relayFanout : Integer.MAX_VALUE;
+        RelayState state = new RelayState(parent, parent == null ? payload : null);
+        int n = targets.size();
+        int groups = Math.min(fanout, n);
+        for (int g = 0; g < groups; g++) {
+            List<KAddress> group = targets.subList((int) ((long) g * n / groups), (int) ((long) (g + 1) * n / groups));
+            KAddress child = group.get(0);
+            List<KAddress> subtree = new ArrayList<>(group.subList(1, group.size()));
+            triggerSend(child, new Relay(id, origin, payload, subtree));
+            state.children.put(child, subtree);
+        }
+        if (state.children.isEmpty()) {
+            completeRelay(id, state);
+            return;
+        }
+        // deeper subtrees get longer, so partial acks from below arrive before this node gives up
+        int levels = fanout == 1 ? n : 1;
+        for (long reach = fanout; fanout > 1 && reach < n; reach *= fanout) {
+            levels++;
+        }
+        ScheduleTimeout st = new ScheduleTimeout(relayAckTimeout * levels);
+        RelayAckTimeout rt = new RelayAckTimeout(st, id);
+        st.setTimeoutEvent(rt);
+        trigger(st, timerPort);
+        state.timeoutId = rt.getTimeoutId();
+        relays.put(id, state);
+    }
+
+    private void completeRelay(UUID id, RelayState state) {
+        relays.remove(id);
+        if (state.timeoutId != null) {
+            trigger(new CancelTimeout(state.timeoutId), timerPort);
+        }
+        if (state.parent != null) {
+            triggerSend(state.parent, new RelayAck(id, state.missed));
+            return;
+        }
+        for (KAddress node : state.missed) {
+            triggerSend(node, state.payload);
+        }
+    }
+
+    private void send(KAddress node, Object content) {
+        KHeader header = new BasicHeader(selfAdr, node, Transport.UDP);
+        KContentMsg msg = new BasicContentMsg(header, content);
+        trigger(msg, networkPort);
     }
 }
@@ -0,0 +1,97 @@
+package se.kth.news.core;
+
+import com.google.common.base.Optional;
+import io.netty.buffer.ByteBuf;
+import se.sics.kompics.network.netty.serialization.Serializer;
+import se.sics.kompics.network.netty.serialization.Serializers;
+import se.sics.ktoolbox.util.network.KAddress;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * The envelopes of SubComponent: bundles, relays and relay acks. Payloads are written through
+ * the registry with their own serializers, addresses of relay targets are interned.
+ */
+public class TransportSerializer implements Serializer {
+
+    private static final int MESSAGE_BUNDLE = 0;
+    private static final int RELAY = 1;
+    private static final int RELAY_ACK = 2;
+
+    private final int id;
+
+    public TransportSerializer(int id) {
+        this.id = id;
+    }
+
+    @Override
+    public int identifier() {
+        return id;
+    }
+
+    @Override
+    public void toBinary(Object o, ByteBuf buf) {
+        AddressTable addresses = new AddressTable();
+        if (o instanceof MessageBundle) {
+            List<Object> payloads = ((MessageBundle) o).payloads;
+            buf.writeByte(MESSAGE_BUNDLE);
+            SerializerHelper.writeVarInt(buf, payloads.size());
+            for (Object payload : payloads) {
+                Serializers.toBinary(payload, buf);
+            }
+        } else if (o instanceof Relay) {
+            Relay relay = (Relay) o;
+            buf.writeByte(RELAY);
+            SerializerHelper.writeUUID(buf, relay.id);
+            addresses.write(buf, relay.origin);
+            SerializerHelper.writeVarInt(buf, relay.targets.size());
+            for (KAddress target : relay.targets) {
+                addresses.write(buf, target);
+            }
+            Serializers.toBinary(relay.payload, buf);
+        } else {
+            RelayAck ack = (RelayAck) o;
+            buf.writeByte(RELAY_ACK);
+            SerializerHelper.writeUUID(buf, ack.id);
+            SerializerHelper.writeVarInt(buf, ack.missed.size());
+            for (KAddress adr : ack.missed) {
+                addresses.write(buf, adr);
+            }
+        }
+    }
+
+    @Override
+    public Object fromBinary(ByteBuf buf, Optional<Object> hint) {
+        AddressTable addresses = new AddressTable();
+        int type = buf.readUnsignedByte();
+        if (type == MESSAGE_BUNDLE) {
+            int size = SerializerHelper.readVarInt(buf);
+            List<Object> payloads = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                payloads.add(Serializers.fromBinary(buf, Optional.absent()));
+            }
+            return new MessageBundle(payloads);
+        }
+        if (type == RELAY) {
+            UUID relayId = SerializerHelper.readUUID(buf);
+            KAddress origin = addresses.read(buf);
+            int size = SerializerHelper.readVarInt(buf);
+            List<KAddress> targets = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                targets.add(addresses.read(buf));
+            }
+            return new Relay(relayId, origin, Serializers.fromBinary(buf, Optional.absent()), targets);
+        }
+        UUID relayId = SerializerHelper.readUUID(buf);
+        int size = SerializerHelper.readVarInt(buf);
+        Set<KAddress> missed = new HashSet<>();
+        for (int i = 0; i < size; i++) {
+            missed.add(addresses.read(buf));
+        }
+        return new RelayAck(relayId, missed);
+    }
+}
@@ -35,6 +35,36 @@ public class Utils {
         return maxRank;
     }
 
+    public static List<KAddress> topRanked(List<Container<KAddress, NewsView>> nodes, int k, Set<KAddress> ignore) {
+        List<Container<KAddress, NewsView>> ranked = new ArrayList<>();
+        for (Container<KAddress, NewsView> c : nodes) {
+            if (!ignore.contains(c.getSource())) {
+                ranked.add(c);
+            }
+        }
+        Collections.sort(ranked, new Comparator<Container<KAddress, NewsView>>() {
+            @Override
+            public int compare(Container<KAddress, NewsView> c1, Container<KAddress, NewsView> c2) {
+                return viewComparator.compare(c2.getContent(), c1.getContent());
+            }
+        });
+        List<KAddress> topRanked = new ArrayList<>();
+        for (Container<KAddress, NewsView> c : ranked.subList(0, Math.min(k, ranked.size()))) {
+            topRanked.add(c.getSource());
+        }
+        return topRanked;
+    }
+
+    public static Set<KAddress> lowerRanked(List<Container<KAddress, NewsView>> nodes, NewsView view) {
+        Set<KAddress> lowerRanked = new HashSet<>();
+        for (Container<KAddress, NewsView> c : nodes) {
+            if (viewComparator.compare(c.getContent(), view) < 0) {
+                lowerRanked.add(c.getSource());
+            }
+        }
+        return lowerRanked;
+    }
+
     public static List<Container<KAddress, NewsView>> merge(List<Container<KAddress, NewsView>> l1, List<Container<KAddress, NewsView>> l2) {
         List<Container<KAddress, NewsView>> merge = new LinkedList<>(l1);
         for (Container<KAddress, NewsView> c : l2) {
@@ -0,0 +1,55 @@
+package se.kth.news.core.epfd;
+
+/**
+ * Sliding window of heartbeat inter-arrival times for one peer, from which the phi accrual
+ * suspicion level is derived (Hayashibara et al., The phi Accrual Failure Detector).
+ */
+public class ArrivalWindow {
+
+    private final long[] intervals;
+    private final long minStdDeviation;
+    private int count = 0;
+    private int next = 0;
+    private long sum = 0;
+    private long sumSquares = 0;
+    private long lastArrival;
+
+    public ArrivalWindow(int size, long firstInterval, long minStdDeviation, long now) {
+        this.intervals = new long[size];
+        this.minStdDeviation = minStdDeviation;
+        this.lastArrival = now;
+        add(firstInterval);
+    }
+
+    public void arrival(long now) {
+        add(now - lastArrival);
+        lastArrival = now;
+    }
+
+    public double phi(long now) {
+        double mean = (double) sum / count;
+        double variance = (double) sumSquares / count - mean * mean;
+        double stdDeviation = Math.max(Math.sqrt(Math.max(variance, 0)), minStdDeviation);
+
+        // logistic approximation of the normal cumulative distribution
+        double y = (now - lastArrival - mean) / stdDeviation;
+        double e = Math.exp(-y * (1.5976 + 0.070566 * y * y));
+        if (now - lastArrival > mean) {
+            return -Math.log10(e / (1.0 + e));
+        }
+        return -Math.log10(1.0 - 1.0 / (1.0 + e));
+    }
+
+    private void add(long interval) {
+        if (count == intervals.length) {
+            sum -= intervals[next];
+            sumSquares -= intervals[next] * intervals[next];
+        } else {
+            count++;
+        }
+        intervals[next] = interval;
+        sum += interval;
+        sumSquares += interval * interval;
+        next = (next + 1) % intervals.length;
+    }
+}
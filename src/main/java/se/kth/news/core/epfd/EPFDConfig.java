@@ -0,0 +1,25 @@
+package se.kth.news.core.epfd;
+
+import se.sics.kompics.config.Config;
+
+public class EPFDConfig {
+
+    public enum Mode {
+        FIXED,      // suspect whoever missed the last period, lengthen the period on false suspicion
+        PHI_ACCRUAL // suspect once the phi of the inter-arrival history exceeds the threshold
+    }
+
+    public final Mode mode;
+    public final long period;             // ms between heartbeat rounds
+    public final double phiThreshold;
+    public final int phiWindow;           // inter-arrival samples kept per peer
+    public final long phiMinStdDeviation; // ms, keeps perfectly regular links from becoming hair-trigger
+
+    public EPFDConfig(Config config) {
+        mode = Mode.valueOf(config.getValue("epfd.mode", String.class).toUpperCase());
+        period = config.getValue("epfd.period", Long.class);
+        phiThreshold = config.getValue("epfd.phiThreshold", Double.class);
+        phiWindow = config.getValue("epfd.phiWindow", Integer.class);
+        phiMinStdDeviation = config.getValue("epfd.phiMinStdDeviation", Long.class);
+    }
+}
@@ -0,0 +1,35 @@
+package se.kth.news.core.epfd;
+
+import com.google.common.base.Optional;
+import io.netty.buffer.ByteBuf;
+import se.sics.kompics.network.netty.serialization.Serializer;
+
+/**
+ * Heartbeats carry no data, a single type byte tells request from reply.
+ */
+public class EPFDSerializer implements Serializer {
+
+    private static final int HEARTBEAT_REQUEST = 0;
+    private static final int HEARTBEAT_REPLY = 1;
+
+    private final int id;
+
+    public EPFDSerializer(int id) {
+        this.id = id;
+    }
+
+    @Override
+    public int identifier() {
+        return id;
+    }
+
+    @Override
+    public void toBinary(Object o, ByteBuf buf) {
+        buf.writeByte(o instanceof HeartbeatRequest ? HEARTBEAT_REQUEST : HEARTBEAT_REPLY);
+    }
+
+    @Override
+    public Object fromBinary(ByteBuf buf, Optional<Object> hint) {
+        return buf.readUnsignedByte() == HEARTBEAT_REQUEST ? new HeartbeatRequest() : new HeartbeatReply();
+    }
+}
@@ -5,11 +5,11 @@ import se.sics.ktoolbox.util.network.KAddress;
 
 import java.util.Set;
 
-public class MonitorRequest implements KompicsEvent {
+public class MonitorAdd implements KompicsEvent {
 
     public final Set<KAddress> nodes;
 
-    public MonitorRequest(Set<KAddress> nodes) {
+    public MonitorAdd(Set<KAddress> nodes) {
         this.nodes = nodes;
     }
 }
@@ -3,13 +3,15 @@ package se.kth.news.core.epfd;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import se.kth.news.core.SubComponent;
-import se.kth.news.core.Utils;
 import se.sics.kompics.*;
+import se.sics.kompics.timer.CancelTimeout;
 import se.sics.kompics.timer.ScheduleTimeout;
 import se.sics.ktoolbox.util.network.KAddress;
 import se.sics.ktoolbox.util.network.KContentMsg;
 
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 
@@ -21,23 +23,27 @@ public class MonitorComp extends SubComponent {
     //*******************************CONNECTIONS********************************
     Negative<MonitorPort> monitorPort = provides(MonitorPort.class);
     //*******************************INTERNAL_STATE*****************************
-    private static final int DELTA = 1000;
-    private UUID lastSetTimer;
-    private Set<KAddress> allNodes;
-    private Set<KAddress> alive;
-    private Set<KAddress> suspected;
-    private int delay;
+    private EPFDConfig epfdConfig;
+    private UUID lastSetTimer; // null while nothing is monitored
+    private Map<KAddress, PeerState> peers = new HashMap<>();
+    private long delay;
+    private SuspicionUpdate suspicion = SuspicionUpdate.NONE;
+    private boolean suspicionChanged = false;
 
     public MonitorComp(Init init) {
         selfAdr = init.selfAdr;
         logPrefix = "<nid:" + selfAdr.getId() + ">";
         LOG.debug("{}initiating...", logPrefix);
 
+        epfdConfig = new EPFDConfig(config());
+        delay = epfdConfig.period;
+
         subscribe(handleStart, control);
-        subscribe(handleMonitorRequest, monitorPort);
+        subscribe(handleMonitorAdd, monitorPort);
+        subscribe(handleMonitorRemove, monitorPort);
         subscribe(handleMonitorTimeout, timerPort);
-        subscribe(handleHeartbeatRequest, networkPort);
-        subscribe(handleHeartbeatReply, networkPort);
+        subscribeNetwork(handleHeartbeatRequest, HeartbeatRequest.class);
+        subscribe(handleTraffic, networkPort);
     }
 
     //*******************************HANDLERS***********************************
@@ -48,35 +54,71 @@ public class MonitorComp extends SubComponent {
         }
     };
 
-    Handler handleMonitorRequest = new Handler<MonitorRequest>() {
+    Handler handleMonitorAdd = new Handler<MonitorAdd>() {
         @Override
-        public void handle(MonitorRequest event) {
-            allNodes = event.nodes;
-            alive = new HashSet<>(allNodes); // deep copy
-            suspected = new HashSet<>();
-            delay = DELTA;
-            startTimer(delay);
+        public void handle(MonitorAdd event) {
+            long now = System.currentTimeMillis();
+            for (KAddress p : event.nodes) {
+                if (!peers.containsKey(p)) {
+                    peers.put(p, new PeerState(new ArrivalWindow(epfdConfig.phiWindow, epfdConfig.period,
+                            epfdConfig.phiMinStdDeviation, now)));
+                }
+            }
+            if (lastSetTimer == null && !peers.isEmpty()) {
+                startTimer(delay);
+            }
+        }
+    };
+
+    Handler handleMonitorRemove = new Handler<MonitorRemove>() {
+        @Override
+        public void handle(MonitorRemove event) {
+            for (KAddress p : event.nodes) {
+                PeerState peer = peers.remove(p);
+                if (peer != null && peer.suspected) {
+                    suspicionChanged = true; // nobody is watching it anymore
+                }
+            }
+            publishSuspicion();
+            if (lastSetTimer != null && peers.isEmpty()) {
+                trigger(new CancelTimeout(lastSetTimer), timerPort);
+                lastSetTimer = null;
+            }
         }
     };
 
     Handler<MonitorTimeout> handleMonitorTimeout = new Handler<MonitorTimeout>() {
         @Override
         public void handle(MonitorTimeout monitorTimeout) {
-            if (monitorTimeout.getTimeoutId() == lastSetTimer) { // check is not 100%!
-                if (!Utils.intersection(alive, suspected).isEmpty()) {
-                    delay += DELTA;
+            if (monitorTimeout.getTimeoutId().equals(lastSetTimer)) {
+                // one arrival per period, at the latest message, so the intervals measure the actual silence
+                // and bursts do not skew the history
+                for (PeerState peer : peers.values()) {
+                    if (peer.lastHeard > 0) {
+                        peer.arrivals.arrival(peer.lastHeard);
+                        peer.lastHeard = 0;
+                    }
                 }
-                for (KAddress p : allNodes) {
-                    if (!alive.contains(p) && !suspected.contains(p)) {
-                        suspected.add(p);
-                        trigger(new Suspect(p), monitorPort);
-                    } else if (alive.contains(p) && suspected.contains(p)) {
-                        suspected.remove(p);
-                        trigger(new Restore(p), monitorPort);
+                if (epfdConfig.mode == EPFDConfig.Mode.PHI_ACCRUAL) {
+                    detectByPhi();
+                } else {
+                    detectByTimeout();
+                }
+                publishSuspicion();
+
+                // peers that were heard from need no probe, any message counts as a heartbeat
+                Set<KAddress> silent = new HashSet<>();
+                for (Map.Entry<KAddress, PeerState> e : peers.entrySet()) {
+                    PeerState peer = e.getValue();
+                    peer.probed = !peer.alive;
+                    peer.alive = false;
+                    if (peer.probed) {
+                        silent.add(e.getKey());
                     }
-                    triggerSend(p, new HeartbeatRequest());
                 }
-                alive = new HashSet<>();
+                for (KAddress p : silent) {
+                    triggerSend(p, new HeartbeatRequest()); // probes go direct, a relay could hide a failure
+                }
                 startTimer(delay);
             }
         }
@@ -91,16 +133,76 @@ public class MonitorComp extends SubComponent {
         }
     };
 
-    ClassMatchedHandler handleHeartbeatReply
-            = new ClassMatchedHandler<HeartbeatReply, KContentMsg<?, ?, HeartbeatReply>>() {
+    // sees every message delivered to this node, HeartbeatReply included
+    Handler handleTraffic = new Handler<KContentMsg>() {
         @Override
-        public void handle(HeartbeatReply content, KContentMsg<?, ?, HeartbeatReply> container) {
-            KAddress p = container.getHeader().getSource();
-            alive.add(p);
+        public void handle(KContentMsg msg) {
+            PeerState peer = peers.get(msg.getHeader().getSource());
+            if (peer != null) {
+                peer.alive = true;
+                peer.lastHeard = System.currentTimeMillis();
+            }
         }
     };
 
     //*******************************HELP_FUNCTIONS*****************************
+    private void detectByTimeout() {
+        boolean falseSuspicion = false;
+        for (Map.Entry<KAddress, PeerState> e : peers.entrySet()) {
+            PeerState peer = e.getValue();
+            if (!peer.alive && peer.probed && !peer.suspected) {
+                suspect(e.getKey(), peer);
+            } else if (peer.alive && peer.suspected) {
+                falseSuspicion = true;
+                restore(e.getKey(), peer);
+            }
+        }
+        if (falseSuspicion) {
+            delay += epfdConfig.period;
+        }
+    }
+
+    private void detectByPhi() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<KAddress, PeerState> e : peers.entrySet()) {
+            PeerState peer = e.getValue();
+            boolean overThreshold = peer.arrivals.phi(now) > epfdConfig.phiThreshold;
+            if (overThreshold && !peer.suspected) {
+                suspect(e.getKey(), peer);
+            } else if (!overThreshold && peer.suspected) {
+                restore(e.getKey(), peer);
+            }
+        }
+    }
+
+    private void suspect(KAddress p, PeerState peer) {
+        LOG.info("{} suspect: {}", logPrefix, p.getId());
+        peer.suspected = true;
+        suspicionChanged = true;
+    }
+
+    private void restore(KAddress p, PeerState peer) {
+        LOG.info("{} restore: {}", logPrefix, p.getId());
+        peer.suspected = false;
+        suspicionChanged = true;
+    }
+
+    // one bulk event for all changes of a detection pass
+    private void publishSuspicion() {
+        if (!suspicionChanged) {
+            return;
+        }
+        Set<KAddress> suspected = new HashSet<>();
+        for (Map.Entry<KAddress, PeerState> e : peers.entrySet()) {
+            if (e.getValue().suspected) {
+                suspected.add(e.getKey());
+            }
+        }
+        suspicion = new SuspicionUpdate(suspicion.version + 1, suspected);
+        suspicionChanged = false;
+        trigger(suspicion, monitorPort);
+    }
+
     private void startTimer(long delay) {
         ScheduleTimeout st = new ScheduleTimeout(delay);
         MonitorTimeout mt = new MonitorTimeout(st);
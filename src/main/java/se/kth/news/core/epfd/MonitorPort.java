@@ -5,8 +5,8 @@ import se.sics.kompics.PortType;
 public class MonitorPort extends PortType {
 
     {
-        request(MonitorRequest.class);
-        indication(Suspect.class);
-        indication(Restore.class);
+        request(MonitorAdd.class);
+        request(MonitorRemove.class);
+        indication(SuspicionUpdate.class);
     }
 }
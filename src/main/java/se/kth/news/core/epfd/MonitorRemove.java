@@ -0,0 +1,15 @@
+package se.kth.news.core.epfd;
+
+import se.sics.kompics.KompicsEvent;
+import se.sics.ktoolbox.util.network.KAddress;
+
+import java.util.Set;
+
+public class MonitorRemove implements KompicsEvent {
+
+    public final Set<KAddress> nodes;
+
+    public MonitorRemove(Set<KAddress> nodes) {
+        this.nodes = nodes;
+    }
+}
@@ -0,0 +1,17 @@
+package se.kth.news.core.epfd;
+
+/**
+ * Failure detector state of one monitored peer, kept for as long as the peer stays monitored.
+ */
+public class PeerState {
+
+    public final ArrivalWindow arrivals;
+    public boolean alive = true;   // heard from during the current period
+    public long lastHeard = 0;     // time of the latest message in the current period, 0 if none
+    public boolean probed = false; // silent for the previous period, sent a heartbeat
+    public boolean suspected = false;
+
+    public PeerState(ArrivalWindow arrivals) {
+        this.arrivals = arrivals;
+    }
+}
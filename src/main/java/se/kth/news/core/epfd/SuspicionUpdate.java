@@ -0,0 +1,33 @@
+package se.kth.news.core.epfd;
+
+import se.sics.kompics.KompicsEvent;
+import se.sics.ktoolbox.util.network.KAddress;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Read-only snapshot of every currently suspected node, published as a whole whenever it changes.
+ * A higher version always replaces a lower one, so consumers keep the latest snapshot instead of a copy of the set.
+ */
+public class SuspicionUpdate implements KompicsEvent {
+
+    public static final SuspicionUpdate NONE = new SuspicionUpdate(0, Collections.<KAddress>emptySet());
+
+    public final long version;
+    public final Set<KAddress> suspected;
+
+    public SuspicionUpdate(long version, Set<KAddress> suspected) {
+        this.version = version;
+        this.suspected = Collections.unmodifiableSet(new HashSet<>(suspected));
+    }
+
+    public boolean isSuspected(KAddress node) {
+        return suspected.contains(node);
+    }
+
+    public boolean isNewerThan(SuspicionUpdate other) {
+        return version > other.version;
+    }
+}
@@ -0,0 +1,56 @@
+package se.kth.news.core.leader;
+
+import se.sics.ktoolbox.util.network.KAddress;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Decides when the local gradient view has settled: the neighbour set changes by at most a small fraction
+ * and the number of neighbours ranked above this node stays the same for several samples in a row.
+ * Once converged it stays converged, later churn is left to leases and failover.
+ */
+public class ConvergenceDetector {
+
+    private final int stableSamples;     // consecutive settled samples needed
+    private final double maxChange;      // max Jaccard distance between consecutive neighbour sets
+    private Set<KAddress> lastNeighbours = new HashSet<>();
+    private int lastRank = -1;
+    private int stableCount = 0;
+    private boolean converged = false;
+
+    public ConvergenceDetector(int stableSamples, double maxChange) {
+        this.stableSamples = stableSamples;
+        this.maxChange = maxChange;
+    }
+
+    /**
+     * @param neighbours current gradient neighbours
+     * @param rank       how many of them rank above this node
+     */
+    public boolean sample(Set<KAddress> neighbours, int rank) {
+        if (!converged) {
+            boolean settled = !neighbours.isEmpty() && rank == lastRank && distance(lastNeighbours, neighbours) <= maxChange;
+            stableCount = settled ? stableCount + 1 : 0;
+            converged = stableCount >= stableSamples;
+            lastNeighbours = new HashSet<>(neighbours);
+            lastRank = rank;
+        }
+        return converged;
+    }
+
+    public boolean converged() {
+        return converged;
+    }
+
+    private static double distance(Set<KAddress> s1, Set<KAddress> s2) {
+        Set<KAddress> union = new HashSet<>(s1);
+        union.addAll(s2);
+        if (union.isEmpty()) {
+            return 0;
+        }
+        Set<KAddress> intersection = new HashSet<>(s1);
+        intersection.retainAll(s2);
+        return 1 - (double) intersection.size() / union.size();
+    }
+}
@@ -1,14 +1,41 @@
 package se.kth.news.core.leader;
 
+import se.kth.news.core.news.util.NewsView;
+import se.sics.ktoolbox.util.network.KAddress;
+
+import java.util.List;
+
 public class Leader2PC {
 
+    public enum Phase {
+        CAN_COMMIT, YES, NO, DO_COMMIT, ABORT
+    }
+
     public final int sid;
-    public final String header;
-    public final Object body;
+    public final Phase phase;
+    public final NewsView candidateView;      // CAN_COMMIT and DO_COMMIT, the view the lease is held under
+    public final List<KAddress> shardLeaders; // DO_COMMIT only, the new leader first
 
-    public Leader2PC(int sid, String header, Object body) {
+    public Leader2PC(int sid, Phase phase, NewsView candidateView, List<KAddress> shardLeaders) {
         this.sid = sid;
-        this.header = header;
-        this.body = body;
+        this.phase = phase;
+        this.candidateView = candidateView;
+        this.shardLeaders = shardLeaders;
+    }
+
+    public static Leader2PC canCommit(int sid, NewsView candidateView) {
+        return new Leader2PC(sid, Phase.CAN_COMMIT, candidateView, null);
+    }
+
+    public static Leader2PC vote(int sid, boolean yes) {
+        return new Leader2PC(sid, yes ? Phase.YES : Phase.NO, null, null);
+    }
+
+    public static Leader2PC doCommit(int sid, NewsView leaderView, List<KAddress> shardLeaders) {
+        return new Leader2PC(sid, Phase.DO_COMMIT, leaderView, shardLeaders);
+    }
+
+    public static Leader2PC abort(int sid) {
+        return new Leader2PC(sid, Phase.ABORT, null, null);
     }
 }
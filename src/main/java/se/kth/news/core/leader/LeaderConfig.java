@@ -0,0 +1,26 @@
+package se.kth.news.core.leader;
+
+import se.sics.kompics.config.Config;
+
+public class LeaderConfig {
+
+    public final long minRoundPeriod; // ms between election rounds while leadership is unsettled
+    public final long maxRoundPeriod; // ms between election rounds once it is stable
+    public final long leaseDuration;  // ms a leader is trusted without hearing from it
+    public final long leaseRenewal;   // ms between lease extensions sent by the leader
+    public final long voteTimeout;    // ms a Yes vote binds a node to its candidate
+    public final int stableSamples;   // settled gradient samples before the view counts as converged
+    public final double maxViewChange; // neighbour set churn (Jaccard distance) still counted as settled
+    public final int shards;          // publication shards, each led by one of the top-ranked nodes
+
+    public LeaderConfig(Config config) {
+        minRoundPeriod = config.getValue("leader.minRoundPeriod", Long.class);
+        maxRoundPeriod = config.getValue("leader.maxRoundPeriod", Long.class);
+        leaseDuration = config.getValue("leader.leaseDuration", Long.class);
+        leaseRenewal = config.getValue("leader.leaseRenewal", Long.class);
+        voteTimeout = config.getValue("leader.voteTimeout", Long.class);
+        stableSamples = config.getValue("leader.stableSamples", Integer.class);
+        maxViewChange = config.getValue("leader.maxViewChange", Double.class);
+        shards = config.getValue("leader.shards", Integer.class);
+    }
+}
@@ -0,0 +1,22 @@
+package se.kth.news.core.leader;
+
+import se.kth.news.core.news.util.NewsView;
+import se.sics.ktoolbox.util.network.KAddress;
+
+import java.util.List;
+
+/**
+ * Sent by the leader to its neighbours to extend its leadership without a new election.
+ */
+public class LeaderLease {
+
+    public final List<KAddress> shardLeaders; // the sender first
+    public final NewsView leaderView;
+    public final long duration; // ms, counted from reception
+
+    public LeaderLease(List<KAddress> shardLeaders, NewsView leaderView, long duration) {
+        this.shardLeaders = shardLeaders;
+        this.leaderView = leaderView;
+        this.duration = duration;
+    }
+}
@@ -1,12 +1,19 @@
 package se.kth.news.core.leader;
 
+import se.kth.news.core.news.util.NewsView;
 import se.sics.ktoolbox.util.network.KAddress;
 
+import java.util.List;
+
 public class LeaderPush {
 
-    public final KAddress leaderAdr;
+    public final List<KAddress> shardLeaders; // the leader first
+    public final NewsView leaderView;         // null if not known yet
+    public final long lease;                  // ms left on the sender's lease, 0 if it has expired
 
-    public LeaderPush(KAddress leaderAdr) {
-        this.leaderAdr = leaderAdr;
+    public LeaderPush(List<KAddress> shardLeaders, NewsView leaderView, long lease) {
+        this.shardLeaders = shardLeaders;
+        this.leaderView = leaderView;
+        this.lease = lease;
     }
 }
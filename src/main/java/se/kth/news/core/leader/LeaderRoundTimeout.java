@@ -0,0 +1,11 @@
+package se.kth.news.core.leader;
+
+import se.sics.kompics.timer.ScheduleTimeout;
+import se.sics.kompics.timer.Timeout;
+
+public class LeaderRoundTimeout extends Timeout {
+
+    protected LeaderRoundTimeout(ScheduleTimeout st) {
+        super(st);
+    }
+}
@@ -21,14 +21,17 @@ import java.util.*;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import se.kth.news.core.AdaptivePeriod;
 import se.kth.news.core.SubComponent;
 import se.kth.news.core.Utils;
-import se.kth.news.core.epfd.MonitorRequest;
+import se.kth.news.core.epfd.MonitorAdd;
+import se.kth.news.core.epfd.MonitorRemove;
 import se.kth.news.core.epfd.MonitorPort;
-import se.kth.news.core.epfd.Restore;
-import se.kth.news.core.epfd.Suspect;
+import se.kth.news.core.epfd.SuspicionUpdate;
 import se.kth.news.core.news.util.NewsView;
 import se.sics.kompics.*;
+import se.sics.kompics.timer.CancelTimeout;
+import se.sics.kompics.timer.ScheduleTimeout;
 import se.sics.ktoolbox.gradient.GradientPort;
 import se.sics.ktoolbox.gradient.event.TGradientSample;
 import se.sics.ktoolbox.util.network.KAddress;
@@ -46,14 +49,27 @@ public class LeaderSelectComp extends SubComponent {
     Negative<LeaderSelectPort> leaderPort = provides(LeaderSelectPort.class);
     //*******************************INTERNAL_STATE*****************************
     private Comparator viewComparator;
+    private LeaderConfig leaderConfig;
     private NewsView selfView;
     private List<Container<KAddress, NewsView>> acquaintances;
-    private int sequenceNumber = -1;
+    private ConvergenceDetector convergence;
     private int sessionId = -1;
     private KAddress leaderAdr;
+    private List<KAddress> shardLeaders = new ArrayList<>(); // leaderAdr first, empty without a leader
+    private NewsView leaderView;      // as advertised with its last lease, null if not known
+    private long leaseExpiry = 0;     // local time until which leaderAdr is trusted without asking
+    private long leaseRenewedAt = 0;  // when this node, as leader, last extended its lease
+    private AdaptivePeriod roundPeriod;
+    private UUID roundTimeoutId;
+    private boolean leaderChanged = false; // since the last round
 
-    private Set<KAddress> suspected = new HashSet<>();
-    private Set<KAddress> unconfirmed;
+    private Set<KAddress> monitored = new HashSet<>(); // as last requested from the monitor
+    private SuspicionUpdate suspicion = SuspicionUpdate.NONE;
+    private Set<KAddress> electorate;  // asked in the current election
+    private Set<KAddress> unconfirmed; // still to vote, null when no election is running
+    private KAddress promisedTo;       // candidate this node voted Yes for
+    private int promisedSid;
+    private long promiseExpiry;        // the promise lapses if the candidate never commits or aborts
 
     public LeaderSelectComp(Init init) {
         selfAdr = init.selfAdr;
@@ -61,14 +77,18 @@ public class LeaderSelectComp extends SubComponent {
         LOG.debug("{}initiating...", logPrefix);
 
         viewComparator = init.viewComparator;
+        leaderConfig = new LeaderConfig(config());
+        roundPeriod = new AdaptivePeriod(leaderConfig.minRoundPeriod, leaderConfig.maxRoundPeriod);
+        convergence = new ConvergenceDetector(leaderConfig.stableSamples, leaderConfig.maxViewChange);
 
         subscribe(handleStart, control);
         subscribe(handleGradientSample, gradientPort);
-        subscribe(handleSuspect, monitorPort);
-        subscribe(handleRestore, monitorPort);
-        subscribe(handleLeader2PC, networkPort);
-        subscribe(handleLeaderPull, networkPort);
-        subscribe(handleLeaderPush, networkPort);
+        subscribe(handleRound, timerPort);
+        subscribe(handleSuspicion, monitorPort);
+        subscribeNetwork(handleLeader2PC, Leader2PC.class);
+        subscribeNetwork(handleLeaderPull, LeaderPull.class);
+        subscribeNetwork(handleLeaderPush, LeaderPush.class);
+        subscribeNetwork(handleLeaderLease, LeaderLease.class);
     }
 
     //*******************************HANDLERS***********************************
@@ -76,14 +96,13 @@ public class LeaderSelectComp extends SubComponent {
         @Override
         public void handle(Start event) {
             LOG.debug("{}starting...", logPrefix);
+            scheduleRound(leaderConfig.minRoundPeriod);
         }
     };
 
     Handler handleGradientSample = new Handler<TGradientSample>() {
         @Override
         public void handle(TGradientSample sample) {
-            sequenceNumber += 1;
-
             LOG.debug("{}neighbours:{}", logPrefix, sample.gradientNeighbours);
             LOG.debug("{}fingers:{}", logPrefix, sample.gradientFingers);
             LOG.debug("{}local view:{}", logPrefix, sample.selfView);
@@ -91,33 +110,55 @@ public class LeaderSelectComp extends SubComponent {
             selfView = (NewsView) sample.selfView;
             //acquaintances = Utils.merge(sample.getGradientFingers(), sample.getGradientNeighbours());
             acquaintances = sample.getGradientNeighbours();
+            if (!convergence.converged() && convergence.sample(Utils.addressSet(acquaintances), higherRanked())) {
+                LOG.info("{} gradient converged", logPrefix);
+            }
+        }
+    };
 
-            if (sequenceNumber > 100) {
+    Handler handleRound = new Handler<LeaderRoundTimeout>() {
+        @Override
+        public void handle(LeaderRoundTimeout timeout) {
+            if (!timeout.getTimeoutId().equals(roundTimeoutId)) {
+                return; // superseded by a takeover
+            }
+            long now = System.currentTimeMillis();
+            if (convergence.converged()) {
                 updateMonitor();
 
+                // a valid lease settles leadership, elect only on expiry or when outranking the leader
                 if (highestRank()) {
-                    initElection();
-                } else {
+                    if (isLeader() && now < leaseExpiry) {
+                        if (now - leaseRenewedAt >= leaderConfig.leaseRenewal) {
+                            renewLease(now);
+                        }
+                    } else if (now >= leaseExpiry || outranksLeader()) {
+                        initElection();
+                    }
+                } else if (now >= leaseExpiry) {
                     leaderPull();
                 }
             }
-        }
-    };
-
-    Handler handleSuspect = new Handler<Suspect>() {
-        @Override
-        public void handle(Suspect event) {
-            if (suspected.add(event.node)) {
-                LOG.info("{} suspect: {}", logPrefix, event.node.getId());
+            boolean electing = unconfirmed != null && !unconfirmed.isEmpty();
+            long delay = roundPeriod.next(leaderAdr == null || leaderChanged || electing);
+            if (now < leaseExpiry) {
+                delay = Math.min(delay, isLeader() ? leaderConfig.leaseRenewal : leaseExpiry - now);
             }
+            scheduleRound(delay);
+            leaderChanged = false;
         }
     };
 
-    Handler handleRestore = new Handler<Restore>() {
+    Handler handleSuspicion = new Handler<SuspicionUpdate>() {
         @Override
-        public void handle(Restore event) {
-            if (suspected.remove(event.node)) {
-                LOG.info("{} restore: {}", logPrefix, event.node.getId());
+        public void handle(SuspicionUpdate event) {
+            if (event.isNewerThan(suspicion)) {
+                suspicion = event;
+                if (leaderAdr != null && !isLeader() && suspicion.isSuspected(leaderAdr)) {
+                    takeOver();
+                } else if (isLeader() && !Collections.disjoint(shardLeaders, suspicion.suspected)) {
+                    renewLease(System.currentTimeMillis()); // hands the shards of suspected nodes to others
+                }
             }
         }
     };
@@ -127,38 +168,40 @@ public class LeaderSelectComp extends SubComponent {
         @Override
         public void handle(Leader2PC content, KContentMsg<?, ?, Leader2PC> container) {
             KAddress source = container.getHeader().getSource();
-            switch (content.header) {
-                case "canCommit?":
-                    Container<KAddress, NewsView> maxRank = Utils.maxRank(acquaintances, suspected);
-                    if (maxRank == null || viewComparator.compare(content.body, maxRank.getContent()) >= 0) {
-                        triggerSend(source, new Leader2PC(content.sid, "Yes", null));
-                    } else {
-                        triggerSend(source, new Leader2PC(content.sid, "No", null));
-                    }
+            switch (content.phase) {
+                case CAN_COMMIT:
+                    triggerSend(source, Leader2PC.vote(content.sid, vote(source, content.sid, content.candidateView)));
                     break;
-                case "Yes":
-                    if (content.sid == sessionId) {
+                case YES:
+                    if (content.sid == sessionId && unconfirmed != null) {
                         unconfirmed.remove(source);
                         if (unconfirmed.isEmpty()) {
-                            triggerBroadcast(Utils.addressSet(acquaintances), new Leader2PC(sessionId, "doCommit", selfAdr));
-                            trustLeader(selfAdr);
+                            commitElection();
                         }
                     }
                     break;
-                case "No":
-                    if (content.sid == sessionId) {
-                        triggerBroadcast(Utils.addressSet(acquaintances), new Leader2PC(sessionId, "abortCommit", null));
+                case NO:
+                    if (content.sid == sessionId && unconfirmed != null) {
+                        abortElection();
+                        // retry on the fast period, the adaptive one would treat the next round as quiet
+                        trigger(new CancelTimeout(roundTimeoutId), timerPort);
+                        scheduleRound(leaderConfig.minRoundPeriod);
                     }
                     break;
-                case "doCommit":
-                    trustLeader((KAddress) content.body);
-                    break;
-                /*case "abortCommit":
+                case DO_COMMIT:
+                    if (commitForbids(source, content)) {
+                        break;
+                    }
+                    releasePromise(source);
+                    if (!suspicion.isSuspected(content.shardLeaders.get(0))) {
+                        holdLease(content.shardLeaders, content.candidateView, leaderConfig.leaseDuration);
+                    }
                     break;
-                case "haveCommited":
+                case ABORT:
+                    if (content.sid == promisedSid) {
+                        releasePromise(source);
+                    }
                     break;
-                default:
-                    break;*/
             }
         }
     };
@@ -169,7 +212,8 @@ public class LeaderSelectComp extends SubComponent {
         public void handle(LeaderPull content, KContentMsg<?, ?, LeaderPull> container) {
             KAddress source = container.getHeader().getSource();
             if (leaderAdr != null) {
-                triggerSend(source, new LeaderPush(leaderAdr));
+                long lease = Math.max(0, leaseExpiry - System.currentTimeMillis());
+                triggerSend(source, new LeaderPush(shardLeaders, leaderView, lease));
             }
         }
     };
@@ -178,19 +222,90 @@ public class LeaderSelectComp extends SubComponent {
             = new ClassMatchedHandler<LeaderPush, KContentMsg<?, ?, LeaderPush>>() {
         @Override
         public void handle(LeaderPush content, KContentMsg<?, ?, LeaderPush> container) {
-            trustLeader(container.getContent().leaderAdr);
+            KAddress leader = content.shardLeaders.get(0);
+            if (suspicion.isSuspected(leader)) {
+                return; // the sender has not noticed yet
+            }
+            if (content.lease > 0) {
+                if (!leaseForbids(leader, content.leaderView)) {
+                    holdLease(content.shardLeaders, content.leaderView, content.lease);
+                }
+            } else {
+                trustLeader(content.shardLeaders);
+            }
+        }
+    };
+
+    ClassMatchedHandler handleLeaderLease
+            = new ClassMatchedHandler<LeaderLease, KContentMsg<?, ?, LeaderLease>>() {
+        @Override
+        public void handle(LeaderLease content, KContentMsg<?, ?, LeaderLease> container) {
+            KAddress source = container.getHeader().getSource();
+            if (!suspicion.isSuspected(source) && !leaseForbids(source, content.leaderView)) {
+                holdLease(content.shardLeaders, content.leaderView, content.duration);
+            }
         }
     };
 
     //*******************************HELP_FUNCTIONS*****************************
+    private void scheduleRound(long delay) {
+        ScheduleTimeout st = new ScheduleTimeout(delay);
+        LeaderRoundTimeout rt = new LeaderRoundTimeout(st);
+        st.setTimeoutEvent(rt);
+        trigger(st, timerPort);
+        roundTimeoutId = rt.getTimeoutId();
+    }
+
+    /**
+     * The leader is suspected: drop it and its lease at once, let the next-ranked node start an election,
+     * and run the following rounds at the fast pace instead of waiting out a long round period.
+     */
+    private void takeOver() {
+        LOG.info("{} leader suspected: {}", logPrefix, leaderAdr.getId());
+        leaderAdr = null;
+        shardLeaders = new ArrayList<>();
+        leaderView = null;
+        leaseExpiry = 0;
+        leaderChanged = true;
+        trigger(new LeaderUpdate(shardLeaders), leaderPort);
+
+        if (highestRank()) {
+            initElection();
+        }
+        trigger(new CancelTimeout(roundTimeoutId), timerPort);
+        scheduleRound(leaderConfig.minRoundPeriod);
+    }
+
     private void updateMonitor() {
         Set<KAddress> nodeToMonitor = new HashSet<>(Utils.addressSet(acquaintances));
-        if (leaderAdr != null) nodeToMonitor.add(leaderAdr);
-        trigger(new MonitorRequest(nodeToMonitor), monitorPort);
+        nodeToMonitor.addAll(shardLeaders);
+
+        // only tell the monitor about the difference, so it keeps its history of unchanged peers
+        Set<KAddress> added = new HashSet<>(nodeToMonitor);
+        added.removeAll(monitored);
+        Set<KAddress> removed = new HashSet<>(monitored);
+        removed.removeAll(nodeToMonitor);
+        if (!added.isEmpty()) {
+            trigger(new MonitorAdd(added), monitorPort);
+        }
+        if (!removed.isEmpty()) {
+            trigger(new MonitorRemove(removed), monitorPort);
+        }
+        monitored = nodeToMonitor;
+    }
+
+    private int higherRanked() {
+        int higherRanked = 0;
+        for (Container<KAddress, NewsView> c : acquaintances) {
+            if (viewComparator.compare(c.getContent(), selfView) > 0) {
+                higherRanked++;
+            }
+        }
+        return higherRanked;
     }
 
     private boolean highestRank() {
-        Container<KAddress, NewsView> maxRank = Utils.maxRank(acquaintances, suspected);
+        Container<KAddress, NewsView> maxRank = Utils.maxRank(acquaintances, suspicion.suspected);
         if (maxRank == null || viewComparator.compare(selfView, maxRank.getContent()) > 0) {
             return true;
         }
@@ -198,21 +313,142 @@ public class LeaderSelectComp extends SubComponent {
     }
 
     private void initElection() {
+        if (unconfirmed != null) {
+            abortElection(); // some voter never answered, free the others before asking again
+        }
         sessionId += 1;
-        unconfirmed = Utils.addressSet(acquaintances);
-        unconfirmed.removeAll(suspected);
-        triggerBroadcast(unconfirmed, new Leader2PC(sessionId, "canCommit?", selfView));
+        electorate = Utils.addressSet(acquaintances);
+        electorate.removeAll(suspicion.suspected);
+        unconfirmed = new HashSet<>(electorate);
+        if (unconfirmed.isEmpty()) {
+            commitElection(); // nobody to ask, no Yes would ever arrive
+            return;
+        }
+        triggerBroadcast(electorate, Leader2PC.canCommit(sessionId, selfView));
+    }
+
+    private void commitElection() {
+        List<KAddress> leaders = assignShards();
+        triggerBroadcast(Utils.addressSet(acquaintances), Leader2PC.doCommit(sessionId, selfView, leaders));
+        holdLease(leaders, selfView, leaderConfig.leaseDuration);
+        leaseRenewedAt = System.currentTimeMillis();
+        unconfirmed = null;
+    }
+
+    private void abortElection() {
+        triggerBroadcast(electorate, Leader2PC.abort(sessionId));
+        unconfirmed = null;
+    }
+
+    // Yes binds this node to the candidate until it commits, aborts or the promise lapses
+    private boolean vote(KAddress candidate, int sid, NewsView candidateView) {
+        long now = System.currentTimeMillis();
+        if (promisedTo != null && !promisedTo.equals(candidate) && now < promiseExpiry) {
+            return false;
+        }
+        Container<KAddress, NewsView> maxRank = Utils.maxRank(acquaintances, suspicion.suspected);
+        if (maxRank != null && viewComparator.compare(candidateView, maxRank.getContent()) < 0
+                || leaseForbids(candidate, candidateView)) {
+            return false;
+        }
+        promisedTo = candidate;
+        promisedSid = sid;
+        promiseExpiry = now + leaderConfig.voteTimeout;
+        return true;
+    }
+
+    /**
+     * DO_COMMIT goes to every neighbour, not only to the voters. A voter only takes it for the session it
+     * voted in, a node promised to another candidate ignores it, and nobody lets it break a valid lease.
+     */
+    private boolean commitForbids(KAddress candidate, Leader2PC commit) {
+        boolean promised = promisedTo != null && System.currentTimeMillis() < promiseExpiry;
+        if (promised && (!promisedTo.equals(candidate) || commit.sid != promisedSid)) {
+            return true;
+        }
+        return leaseForbids(candidate, commit.candidateView);
+    }
+
+    private void releasePromise(KAddress candidate) {
+        if (candidate.equals(promisedTo)) {
+            promisedTo = null;
+        }
     }
 
-    private void trustLeader(KAddress newLeaderAdr) {
-        if (leaderAdr == null || !leaderAdr.equals(newLeaderAdr)) {
-            leaderAdr = newLeaderAdr;
-            trigger(new LeaderUpdate(leaderAdr), leaderPort);
+    private boolean isLeader() {
+        return selfAdr.equals(leaderAdr);
+    }
+
+    private boolean outranksLeader() {
+        return leaderView != null && viewComparator.compare(selfView, leaderView) > 0;
+    }
+
+    // another node's valid lease stands unless the candidate ranks above that leader
+    private boolean leaseForbids(KAddress candidate, NewsView candidateView) {
+        if (leaderAdr == null || leaderAdr.equals(candidate) || System.currentTimeMillis() >= leaseExpiry) {
+            return false;
+        }
+        return candidateView == null || leaderView != null && viewComparator.compare(candidateView, leaderView) <= 0;
+    }
+
+    private void holdLease(List<KAddress> leaders, NewsView view, long duration) {
+        if (view != null || !leaders.get(0).equals(leaderAdr)) {
+            leaderView = view;
+        }
+        trustLeader(leaders);
+        leaseExpiry = System.currentTimeMillis() + duration;
+    }
+
+    private void renewLease(long now) {
+        Set<KAddress> followers = Utils.addressSet(acquaintances);
+        followers.removeAll(suspicion.suspected);
+        List<KAddress> leaders = assignShards();
+        triggerBroadcast(followers, new LeaderLease(leaders, selfView, leaderConfig.leaseDuration));
+        trustLeader(leaders);
+        leaderView = selfView;
+        leaseExpiry = now + leaderConfig.leaseDuration;
+        leaseRenewedAt = now;
+    }
+
+    /**
+     * This node first, then one top-ranked neighbour per further shard. A shard keeps its leader for as long
+     * as that node stays an unsuspected neighbour, so re-assignment only moves the shards that lost theirs.
+     * Every shard keeps its slot, one without a free neighbour falls back to this node rather than being
+     * dropped, which would shift the slots of all the shards after it.
+     */
+    private List<KAddress> assignShards() {
+        Set<KAddress> candidates = Utils.addressSet(acquaintances);
+        candidates.removeAll(suspicion.suspected);
+        List<KAddress> current = isLeader() ? shardLeaders : new ArrayList<KAddress>();
+        List<KAddress> fresh = Utils.topRanked(acquaintances, acquaintances.size(), suspicion.suspected);
+        fresh.removeAll(current);
+
+        List<KAddress> leaders = new ArrayList<>();
+        leaders.add(selfAdr);
+        for (int i = 1; i < leaderConfig.shards; i++) {
+            KAddress shardLeader = i < current.size() ? current.get(i) : null;
+            if (shardLeader == null || !shardLeader.equals(selfAdr) && !candidates.contains(shardLeader)) {
+                shardLeader = fresh.isEmpty() ? selfAdr : fresh.remove(0);
+            }
+            leaders.add(shardLeader);
+        }
+        return leaders;
+    }
+
+    private void trustLeader(List<KAddress> newShardLeaders) {
+        if (!shardLeaders.equals(newShardLeaders)) {
+            KAddress newLeaderAdr = newShardLeaders.get(0);
+            if (leaderAdr == null || !leaderAdr.equals(newLeaderAdr)) {
+                leaderAdr = newLeaderAdr;
+                leaderChanged = true;
+            }
+            shardLeaders = new ArrayList<>(newShardLeaders);
+            trigger(new LeaderUpdate(new ArrayList<>(shardLeaders)), leaderPort);
         }
     }
 
     private void leaderPull() {
-        Container<KAddress, NewsView> maxRank = Utils.maxRank(acquaintances, suspected);
+        Container<KAddress, NewsView> maxRank = Utils.maxRank(acquaintances, suspicion.suspected);
         if (maxRank != null) {
             triggerSend(maxRank.getSource(), new LeaderPull());
         }
@@ -0,0 +1,128 @@
+package se.kth.news.core.leader;
+
+import com.google.common.base.Optional;
+import io.netty.buffer.ByteBuf;
+import se.kth.news.core.AddressTable;
+import se.kth.news.core.SerializerHelper;
+import se.kth.news.core.news.util.NewsView;
+import se.sics.kompics.network.netty.serialization.Serializer;
+import se.sics.ktoolbox.util.network.KAddress;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Leader2PC: phase (1 byte) | sid (varint) | candidate view for CAN_COMMIT, view and shard leaders for DO_COMMIT
+ * LeaderPull: type byte only
+ * LeaderPush, LeaderLease: shard leaders | optional leader view | lease (varint ms)
+ */
+public class LeaderSerializer implements Serializer {
+
+    private static final Leader2PC.Phase[] PHASES = Leader2PC.Phase.values();
+    // Leader2PC uses the type byte for its phase, the other messages follow the phases
+    private static final int LEADER_PULL = PHASES.length;
+    private static final int LEADER_PUSH = PHASES.length + 1;
+    private static final int LEADER_LEASE = PHASES.length + 2;
+
+    private final int id;
+
+    public LeaderSerializer(int id) {
+        this.id = id;
+    }
+
+    @Override
+    public int identifier() {
+        return id;
+    }
+
+    @Override
+    public void toBinary(Object o, ByteBuf buf) {
+        if (o instanceof Leader2PC) {
+            Leader2PC msg = (Leader2PC) o;
+            buf.writeByte(msg.phase.ordinal());
+            SerializerHelper.writeVarInt(buf, msg.sid);
+            switch (msg.phase) {
+                case CAN_COMMIT:
+                    SerializerHelper.writeView(buf, msg.candidateView);
+                    break;
+                case DO_COMMIT:
+                    SerializerHelper.writeView(buf, msg.candidateView);
+                    writeLeaders(buf, msg.shardLeaders);
+                    break;
+                default:
+                    break;
+            }
+        } else if (o instanceof LeaderPull) {
+            buf.writeByte(LEADER_PULL);
+        } else if (o instanceof LeaderPush) {
+            LeaderPush push = (LeaderPush) o;
+            buf.writeByte(LEADER_PUSH);
+            writeLeaders(buf, push.shardLeaders);
+            writeOptionalView(buf, push.leaderView);
+            SerializerHelper.writeVarLong(buf, push.lease);
+        } else {
+            LeaderLease lease = (LeaderLease) o;
+            buf.writeByte(LEADER_LEASE);
+            writeLeaders(buf, lease.shardLeaders);
+            writeOptionalView(buf, lease.leaderView);
+            SerializerHelper.writeVarLong(buf, lease.duration);
+        }
+    }
+
+    @Override
+    public Object fromBinary(ByteBuf buf, Optional<Object> hint) {
+        int type = buf.readUnsignedByte();
+        if (type < PHASES.length) {
+            Leader2PC.Phase phase = PHASES[type];
+            int sid = SerializerHelper.readVarInt(buf);
+            switch (phase) {
+                case CAN_COMMIT:
+                    return Leader2PC.canCommit(sid, SerializerHelper.readView(buf));
+                case DO_COMMIT:
+                    NewsView leaderView = SerializerHelper.readView(buf);
+                    return Leader2PC.doCommit(sid, leaderView, readLeaders(buf));
+                default:
+                    return new Leader2PC(sid, phase, null, null);
+            }
+        }
+        if (type == LEADER_PULL) {
+            return new LeaderPull();
+        }
+        List<KAddress> shardLeaders = readLeaders(buf);
+        NewsView leaderView = readOptionalView(buf);
+        long lease = SerializerHelper.readVarLong(buf);
+        if (type == LEADER_PUSH) {
+            return new LeaderPush(shardLeaders, leaderView, lease);
+        }
+        return new LeaderLease(shardLeaders, leaderView, lease);
+    }
+
+    private static void writeLeaders(ByteBuf buf, List<KAddress> shardLeaders) {
+        AddressTable addresses = new AddressTable();
+        SerializerHelper.writeVarInt(buf, shardLeaders.size());
+        for (KAddress adr : shardLeaders) {
+            addresses.write(buf, adr);
+        }
+    }
+
+    private static List<KAddress> readLeaders(ByteBuf buf) {
+        AddressTable addresses = new AddressTable();
+        int size = SerializerHelper.readVarInt(buf);
+        List<KAddress> shardLeaders = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            shardLeaders.add(addresses.read(buf));
+        }
+        return shardLeaders;
+    }
+
+    private static void writeOptionalView(ByteBuf buf, NewsView view) {
+        buf.writeBoolean(view != null);
+        if (view != null) {
+            SerializerHelper.writeView(buf, view);
+        }
+    }
+
+    private static NewsView readOptionalView(ByteBuf buf) {
+        return buf.readBoolean() ? SerializerHelper.readView(buf) : null;
+    }
+}
@@ -20,14 +20,23 @@ package se.kth.news.core.leader;
 import se.sics.kompics.KompicsEvent;
 import se.sics.ktoolbox.util.network.KAddress;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * @author Alex Ormenisan <aaor@kth.se>
  */
 public class LeaderUpdate implements KompicsEvent {
 
     public final KAddress leaderAdr;
+    public final List<KAddress> shardLeaders; // one per shard, a node may lead several, leaderAdr first
+
+    public LeaderUpdate(List<KAddress> shardLeaders) {
+        this.leaderAdr = shardLeaders.isEmpty() ? null : shardLeaders.get(0);
+        this.shardLeaders = Collections.unmodifiableList(shardLeaders);
+    }
 
-    public LeaderUpdate(KAddress leaderAdr) {
-        this.leaderAdr = leaderAdr;
+    public KAddress leaderOf(int shard) {
+        return shardLeaders.isEmpty() ? null : shardLeaders.get(shard % shardLeaders.size());
     }
 }
@@ -0,0 +1,11 @@
+package se.kth.news.core.news;
+
+import se.sics.kompics.timer.ScheduleTimeout;
+import se.sics.kompics.timer.Timeout;
+
+public class AckFlushTimeout extends Timeout {
+
+    protected AckFlushTimeout(ScheduleTimeout st) {
+        super(st);
+    }
+}
@@ -0,0 +1,14 @@
+package se.kth.news.core.news;
+
+import se.sics.kompics.timer.ScheduleTimeout;
+import se.sics.kompics.timer.Timeout;
+
+public class BatchLingerTimeout extends Timeout {
+
+    public final int shard;
+
+    protected BatchLingerTimeout(ScheduleTimeout st, int shard) {
+        super(st);
+        this.shard = shard;
+    }
+}
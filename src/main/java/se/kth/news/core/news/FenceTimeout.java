@@ -0,0 +1,14 @@
+package se.kth.news.core.news;
+
+import se.sics.kompics.timer.ScheduleTimeout;
+import se.sics.kompics.timer.Timeout;
+
+public class FenceTimeout extends Timeout {
+
+    public final int shard;
+
+    protected FenceTimeout(ScheduleTimeout st, int shard) {
+        super(st);
+        this.shard = shard;
+    }
+}
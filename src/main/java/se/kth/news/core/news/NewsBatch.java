@@ -0,0 +1,22 @@
+package se.kth.news.core.news;
+
+import se.kth.news.newsitem.Ping;
+
+import java.util.List;
+
+public class NewsBatch {
+
+    public final int shard;
+    public final int firstSeq;     // leader-assigned global seq of news.get(0), the rest follow in order
+    public final List<Ping> news;
+
+    public NewsBatch(int shard, int firstSeq, List<Ping> news) {
+        this.shard = shard;
+        this.firstSeq = firstSeq;
+        this.news = news;
+    }
+
+    public int endSeq() {
+        return firstSeq + news.size();
+    }
+}
@@ -21,15 +21,25 @@ import java.util.*;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import se.kth.news.core.AdaptivePeriod;
 import se.kth.news.core.SubComponent;
 import se.kth.news.core.Utils;
 import se.kth.news.core.epfd.MonitorPort;
-import se.kth.news.core.epfd.Restore;
-import se.kth.news.core.epfd.Suspect;
+import se.kth.news.core.epfd.SuspicionUpdate;
 import se.kth.news.core.leader.LeaderPull;
 import se.kth.news.core.leader.LeaderSelectPort;
 import se.kth.news.core.leader.LeaderUpdate;
+import se.kth.news.core.news.util.AckAggregator;
+import se.kth.news.core.news.util.BatchLog;
+import se.kth.news.core.news.util.LongObjectMap;
+import se.kth.news.core.news.util.NodeCapacity;
 import se.kth.news.core.news.util.NewsView;
+import se.kth.news.core.news.util.OriginLog;
+import se.kth.news.core.news.util.Publication;
+import se.kth.news.core.news.util.SeqRangeSet;
+import se.kth.news.core.news.util.ShardLog;
+import se.kth.news.core.news.util.UtilityFunction;
+import se.kth.news.newsitem.NewsKey;
 import se.kth.news.newsitem.Ping;
 import se.kth.news.newsitem.Pong;
 import se.kth.news.sim.ScenarioSetup;
@@ -38,6 +48,8 @@ import se.sics.kompics.Handler;
 import se.sics.kompics.Negative;
 import se.sics.kompics.Positive;
 import se.sics.kompics.Start;
+import se.sics.kompics.timer.CancelTimeout;
+import se.sics.kompics.timer.ScheduleTimeout;
 import se.sics.ktoolbox.croupier.CroupierPort;
 import se.sics.ktoolbox.croupier.event.CroupierSample;
 import se.sics.ktoolbox.gradient.GradientPort;
@@ -46,6 +58,7 @@ import se.sics.ktoolbox.util.identifiable.Identifier;
 import se.sics.ktoolbox.util.network.KAddress;
 import se.sics.ktoolbox.util.network.KContentMsg;
 import se.sics.ktoolbox.util.network.KHeader;
+import se.sics.ktoolbox.util.other.AgingAdrContainer;
 import se.sics.ktoolbox.util.other.Container;
 import se.sics.ktoolbox.util.overlays.view.OverlayViewUpdate;
 import se.sics.ktoolbox.util.overlays.view.OverlayViewUpdatePort;
@@ -63,19 +76,37 @@ public class NewsComp extends SubComponent {
     Negative<OverlayViewUpdatePort> viewUpdatePort = provides(OverlayViewUpdatePort.class);
     //*******************************EXTERNAL_STATE*****************************
     private Identifier gradientOId;
+    private int selfId;
+    private NewsConfig newsConfig;
+    private Random rand;
+    private UtilityFunction utilityFunction;
+    private long startTime;
     //*******************************INTERNAL_STATE*****************************
+    private NewsView selfView;
     private List<Container<KAddress, NewsView>> acquaintances;
+    private List<Container<KAddress, NewsView>> fingers;
     private int sequenceNumber = -1;
     private KAddress leaderAdr;
-    private Map<Integer, Set<String>> newsCoverage = new HashMap<>();  // news item -> {nodes}
-    private Map<String, Set<Integer>> nodeKnowledge = new HashMap<>(); // node -> {news items}
+    private LeaderUpdate leaders = new LeaderUpdate(new ArrayList<KAddress>()); // per publication shard
+    private Map<Integer, Set<Integer>> newsCoverage = new HashMap<>();  // news item -> {nodes}
+    private Map<Integer, Set<Integer>> nodeKnowledge = new HashMap<>(); // node -> {news items}
 
-    private Set<String> news2 = new HashSet<>();
-    private Map<String, KAddress> news2KAddress = new HashMap<>();
-    private Map<String, Integer> news2SeqNum = new HashMap<>();
+    private LongObjectMap<OriginLog> news = new LongObjectMap<>(); // origin id -> received news
+    private int newsCount = 0;
+    private int publishSeqNum = 0;
+    private AdaptivePeriod roundPeriod;
+    private boolean roundActivity = false; // news arrived since the last round
 
-    private Set<KAddress> suspected = new HashSet<>();
-    private Map<String, Ping> unconfirmed = new HashMap<>(); // newsId -> news
+    private SuspicionUpdate suspicion = SuspicionUpdate.NONE;
+    private Deque<Ping> backlog = new LinkedList<>();                    // not yet sent to the leader
+    private LongObjectMap<Publication> inFlight = new LongObjectMap<>(); // seqNum -> unacknowledged publication
+    private AckAggregator pendingAcks = new AckAggregator();
+
+    private ShardLog[] shards; // publications are sequenced per shard of origin ids
+    private LongObjectMap<Ping> replicas = new LongObjectMap<>(); // standby only, accepted by a shard leader but not seen sequenced
+
+    private List<Ping> rumors = new ArrayList<>(); // new items to gossip on the next croupier sample
+    private Map<KAddress, Long> treeChildren = new HashMap<>(); // nodes that took this one as tree parent -> last pull
 
     public NewsComp(Init init) {
         selfAdr = init.selfAdr;
@@ -83,17 +114,36 @@ public class NewsComp extends SubComponent {
         LOG.debug("{}initiating...", logPrefix);
 
         gradientOId = init.gradientOId;
+        selfId = NewsKey.originId(selfAdr);
+        newsConfig = new NewsConfig(config());
+        rand = new Random(config().getValue("system.seed", Long.class));
+        utilityFunction = new UtilityFunction(config());
+        shards = new ShardLog[config().getValue("leader.shards", Integer.class)];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new ShardLog(i, newsConfig.batchRetention);
+        }
+        roundPeriod = new AdaptivePeriod(newsConfig.minRoundPeriod, newsConfig.maxRoundPeriod);
 
         subscribe(handleStart, control);
         subscribe(handleCroupierSample, croupierPort);
         subscribe(handleGradientSample, gradientPort);
         subscribe(handleLeader, leaderPort);
-        subscribe(handleSuspect, monitorPort);
-        subscribe(handleRestore, monitorPort);
-        subscribe(handlePing, networkPort);
-        subscribe(handlePong, networkPort);
-        subscribe(handleNewsPull, networkPort);
-        subscribe(handleNewsPush, networkPort);
+        subscribe(handleSuspicion, monitorPort);
+        subscribe(handleAckFlush, timerPort);
+        subscribe(handleRetransmit, timerPort);
+        subscribe(handleBatchLinger, timerPort);
+        subscribe(handleFence, timerPort);
+        subscribe(handleRound, timerPort);
+        subscribeNetwork(handlePing, Ping.class);
+        subscribeNetwork(handlePong, Pong.class);
+        subscribeNetwork(handlePublishAck, PublishAck.class);
+        subscribeNetwork(handleNewsPull, NewsPull.class);
+        subscribeNetwork(handleNewsPush, NewsPush.class);
+        subscribeNetwork(handleNewsBatch, NewsBatch.class);
+        subscribeNetwork(handleNewsNack, NewsNack.class);
+        subscribeNetwork(handleNewsRepair, NewsRepair.class);
+        subscribeNetwork(handleNewsRumor, NewsRumor.class);
+        subscribeNetwork(handleNewsReplica, NewsReplica.class);
     }
 
     //*******************************HANDLERS***********************************
@@ -101,14 +151,31 @@ public class NewsComp extends SubComponent {
         @Override
         public void handle(Start event) {
             LOG.debug("{}starting...", logPrefix);
+            startTime = System.currentTimeMillis();
             updateLocalNewsView();
+            scheduleRound(newsConfig.minRoundPeriod);
         }
     };
 
     Handler handleCroupierSample = new Handler<CroupierSample<NewsView>>() {
         @Override
         public void handle(CroupierSample<NewsView> castSample) {
-            // not used
+            if (rumors.isEmpty()) {
+                return;
+            }
+            List<KAddress> peers = new ArrayList<>();
+            for (AgingAdrContainer<KAddress, NewsView> c : castSample.publicSample.values()) {
+                peers.add(c.getSource());
+            }
+            peers.removeAll(suspicion.suspected);
+            Collections.shuffle(peers, rand);
+
+            // infect and die: every item is pushed in one round only, the ttl bounds how far it travels
+            NewsRumor rumor = new NewsRumor(rumors);
+            rumors = new ArrayList<>();
+            for (KAddress peer : peers.subList(0, Math.min(newsConfig.rumorFanout, peers.size()))) {
+                triggerSend(peer, rumor);
+            }
         }
     };
 
@@ -118,13 +185,12 @@ public class NewsComp extends SubComponent {
             sequenceNumber += 1;
 
             //acquaintances = Utils.merge(sample.getGradientFingers(), sample.getGradientNeighbours());
+            selfView = (NewsView) sample.selfView;
             acquaintances = sample.getGradientNeighbours();
+            fingers = sample.getGradientFingers();
 
             if (leaderAdr != null) {
-                resend();
-                newsPull();
-
-                if (selfAdr.getId().toString().equals("1")) {
+                if (selfId == 1) {
                     // Print results
                     int numberOfNews = newsCoverage.keySet().size();
                     if (numberOfNews > 0) {
@@ -138,7 +204,7 @@ public class NewsComp extends SubComponent {
 
                         double knowledgeSum = 0;
                         List<Integer> knowledgeList = new LinkedList<>();
-                        for (String node : nodeKnowledge.keySet()) {
+                        for (int node : nodeKnowledge.keySet()) {
                             int news = nodeKnowledge.get(node).size();
                             double newsPercent = 100 * news / numberOfNews;
                             knowledgeSum += newsPercent;
@@ -150,42 +216,80 @@ public class NewsComp extends SubComponent {
                         System.out.println("node knowledge\t" + knowledgeSum / NUMBER_OF_NODES);
                         System.out.println("for each node\t" + knowledgeList);*/
 
-                        System.out.println("unconfirmed: " + unconfirmed.size());
+                        System.out.println("unconfirmed: " + (inFlight.size() + backlog.size()));
                     }
 
                     if (sequenceNumber < 303) {
-                        newsCoverage.put(sequenceNumber, new HashSet<String>());
-                        Ping ping = new Ping(selfAdr, sequenceNumber, null, ScenarioSetup.TTL);
-                        unconfirmed.put(ping.getIdentifier(), ping);
-                        triggerSend(leaderAdr, ping);
+                        // origin seqNums are dense so that they compact into few ranges
+                        newsCoverage.put(publishSeqNum, new HashSet<Integer>());
+                        publish(new Ping(selfAdr, publishSeqNum++, null, ScenarioSetup.TTL));
                     }
                 }
             }
         }
     };
 
-    Handler handleLeader = new Handler<LeaderUpdate>() {
+    Handler handleRound = new Handler<NewsRoundTimeout>() {
         @Override
-        public void handle(LeaderUpdate event) {
-            leaderAdr = event.leaderAdr;
-            //LOG.info("{} new leader: {}", logPrefix, leaderAdr.getId());
+        public void handle(NewsRoundTimeout timeout) {
+            boolean gaps = false;
+            for (ShardLog shard : shards) {
+                gaps |= !shard.gaps().isEmpty();
+            }
+            if (leaderAdr != null && acquaintances != null) {
+                newsPull();
+                for (ShardLog shard : shards) {
+                    shard.nacked = new SeqRangeSet();
+                    repairGaps(shard, randomAcquaintance(null));
+                }
+            }
+            scheduleRound(roundPeriod.next(roundActivity || gaps));
+            roundActivity = false;
+            advertiseView(); // uptime and queue depth move without news arriving
         }
     };
 
-    Handler handleSuspect = new Handler<Suspect>() {
+    Handler handleLeader = new Handler<LeaderUpdate>() {
         @Override
-        public void handle(Suspect event) {
-            if (suspected.add(event.node)) {
-                LOG.info("{} suspect: {}", logPrefix, event.node.getId());
+        public void handle(LeaderUpdate event) {
+            List<ShardLog> gained = new ArrayList<>();
+            for (ShardLog shard : shards) {
+                if (!leads(shard)) {
+                    gained.add(shard);
+                }
+            }
+            leaderAdr = event.leaderAdr;
+            leaders = event;
+            //LOG.info("{} new leader: {}", logPrefix, leaderAdr.getId());
+            for (ShardLog shard : gained) {
+                if (leads(shard)) {
+                    fence(shard);
+                }
+            }
+            // as a warm standby, sequence what the old leader accepted but never got out. Replicas of shards
+            // led by others stay until their batch shows up, whatever interim update comes first
+            for (Ping newsItem : replicas.values()) {
+                ShardLog shard = shardOf(newsItem.origin);
+                if (leads(shard)) {
+                    if (!shard.isSequenced(newsItem) && !shard.isBatched(newsItem)) {
+                        addToBatch(shard, newsItem);
+                    }
+                    replicas.remove(newsItem.getKey());
+                }
             }
+            resume();
         }
     };
 
-    Handler handleRestore = new Handler<Restore>() {
+    Handler handleSuspicion = new Handler<SuspicionUpdate>() {
         @Override
-        public void handle(Restore event) {
-            if (suspected.remove(event.node)) {
-                LOG.info("{} restore: {}", logPrefix, event.node.getId());
+        public void handle(SuspicionUpdate event) {
+            if (event.isNewerThan(suspicion)) {
+                boolean wasPaused = paused();
+                suspicion = event;
+                if (wasPaused && !paused()) {
+                    resume(); // the leader was falsely suspected
+                }
             }
         }
     };
@@ -197,14 +301,21 @@ public class NewsComp extends SubComponent {
         public void handle(Ping content, KContentMsg<?, ?, Ping> container) {
             KAddress source = container.getHeader().getSource();
             LOG.debug("{} received ping from: {}", logPrefix, source.getId());
-            String newsItem = content.getIdentifier();
-            news2KAddress.put(newsItem, content.origin);
-            news2SeqNum.put(newsItem, content.seqNum);
-            news2.add(newsItem);
-            updateLocalNewsView();
-
-            // Send Pong
-            triggerSend(news2KAddress.get(newsItem), new Pong(news2SeqNum.get(newsItem)));
+            if (addNews(content)) {
+                updateLocalNewsView();
+                ack(content);
+                spread(content);
+            }
+            ShardLog shard = shardOf(content.origin);
+            if (!leads(shard)) {
+                return; // left unacknowledged, the publisher retransmits until it reaches the shard's leader
+            }
+            if (shard.isSequenced(content)) {
+                triggerSend(content.origin, new PublishAck(SeqRangeSet.of(content.seqNum))); // the batch ack got lost
+            } else if (!shard.isBatched(content)) {
+                addToBatch(shard, content); // acknowledged to the publisher once sequenced
+                replicate(content);
+            }
         }
     };
 
@@ -215,12 +326,70 @@ public class NewsComp extends SubComponent {
         public void handle(Pong content, KContentMsg<?, KHeader<?>, Pong> container) {
             KAddress source = container.getHeader().getSource();
             LOG.debug("{}received pong from:{}", logPrefix, source.getId());
-            String sourceId = source.getId().toString();
-            newsCoverage.get(content.seqNum).add(sourceId);
+            int sourceId = NewsKey.originId(source);
             if (nodeKnowledge.get(sourceId) == null) {
                 nodeKnowledge.put(sourceId, new HashSet<Integer>());
             }
-            nodeKnowledge.get(sourceId).add(content.seqNum);
+            for (int r = 0; r < content.seqNums.ranges(); r++) {
+                for (int seqNum = content.seqNums.from(r); seqNum < content.seqNums.to(r); seqNum++) {
+                    newsCoverage.get(seqNum).add(sourceId);
+                    nodeKnowledge.get(sourceId).add(seqNum);
+                }
+            }
+        }
+    };
+
+    ClassMatchedHandler handlePublishAck
+            = new ClassMatchedHandler<PublishAck, KContentMsg<?, ?, PublishAck>>() {
+        @Override
+        public void handle(PublishAck content, KContentMsg<?, ?, PublishAck> container) {
+            for (int r = 0; r < content.seqNums.ranges(); r++) {
+                for (int seqNum = content.seqNums.from(r); seqNum < content.seqNums.to(r); seqNum++) {
+                    confirm(seqNum);
+                }
+            }
+        }
+    };
+
+    Handler handleRetransmit = new Handler<RetransmitTimeout>() {
+        @Override
+        public void handle(RetransmitTimeout timeout) {
+            Publication publication = inFlight.get(timeout.seqNum);
+            if (publication != null && timeout.getTimeoutId().equals(publication.timeoutId) && !paused()) {
+                transmit(publication);
+            }
+        }
+    };
+
+    Handler handleBatchLinger = new Handler<BatchLingerTimeout>() {
+        @Override
+        public void handle(BatchLingerTimeout timeout) {
+            ShardLog shard = shards[timeout.shard];
+            if (timeout.getTimeoutId().equals(shard.batchLingerTimeoutId)) {
+                shard.batchLingerTimeoutId = null;
+                flushBatch(shard);
+            }
+        }
+    };
+
+    Handler handleFence = new Handler<FenceTimeout>() {
+        @Override
+        public void handle(FenceTimeout timeout) {
+            ShardLog shard = shards[timeout.shard];
+            if (timeout.getTimeoutId().equals(shard.fenceTimeoutId)) {
+                shard.fenceTimeoutId = null;
+                shard.nextGlobalSeq = Math.max(shard.nextGlobalSeq, shard.sequenced.upperBound());
+                flushBatch(shard);
+            }
+        }
+    };
+
+    Handler handleAckFlush = new Handler<AckFlushTimeout>() {
+        @Override
+        public void handle(AckFlushTimeout event) {
+            for (Map.Entry<KAddress, SeqRangeSet> e : pendingAcks.drain().entrySet()) {
+                triggerSend(e.getKey(), new Pong(e.getValue()));
+            }
         }
     };
 
@@ -229,7 +398,10 @@ public class NewsComp extends SubComponent {
         @Override
         public void handle(NewsPull content, KContentMsg<?, ?, NewsPull> container) {
             KAddress source = container.getHeader().getSource();
-            triggerSend(source, new NewsPush(news2, news2KAddress, news2SeqNum));
+            if (content.treeParent) {
+                treeChildren.put(source, System.currentTimeMillis());
+            }
+            triggerSend(source, new NewsPush(missingNews(content.digest)));
         }
     };
 
@@ -237,45 +409,490 @@ public class NewsComp extends SubComponent {
             = new ClassMatchedHandler<NewsPush, KContentMsg<?, ?, NewsPush>>() {
         @Override
         public void handle(NewsPush content, KContentMsg<?, ?, NewsPush> container) {
-            for (String newsItem : container.getContent().news2) {
-                news2KAddress.put(newsItem, container.getContent().news2KAddress.get(newsItem));
-                news2SeqNum.put(newsItem, container.getContent().news2SeqNum.get(newsItem));
-                news2.add(newsItem);
+            boolean updated = false;
+            for (Ping newsItem : content.news) {
+                updated |= deliver(newsItem);
+            }
+            if (updated) {
                 updateLocalNewsView();
+            }
+        }
+    };
 
-                // Send Pong
-                triggerSend(news2KAddress.get(newsItem), new Pong(news2SeqNum.get(newsItem)));
+    ClassMatchedHandler handleNewsBatch
+            = new ClassMatchedHandler<NewsBatch, KContentMsg<?, ?, NewsBatch>>() {
+        @Override
+        public void handle(NewsBatch content, KContentMsg<?, ?, NewsBatch> container) {
+            if (!validShard(content.shard)) {
+                return;
+            }
+            if (receiveBatch(content, container.getHeader().getSource(), newsConfig.treePush)) {
+                updateLocalNewsView();
+            }
+            repairGaps(shards[content.shard], container.getHeader().getSource());
+        }
+    };
 
-                unconfirmed.remove(newsItem);
+    ClassMatchedHandler handleNewsRumor
+            = new ClassMatchedHandler<NewsRumor, KContentMsg<?, ?, NewsRumor>>() {
+        @Override
+        public void handle(NewsRumor content, KContentMsg<?, ?, NewsRumor> container) {
+            boolean updated = false;
+            for (Ping newsItem : content.news) {
+                updated |= deliver(newsItem);
+            }
+            if (updated) {
+                updateLocalNewsView();
             }
         }
     };
 
-    //*******************************HELP_FUNCTIONS*****************************
-    private void updateLocalNewsView() {
-        int utility = news2.size();
-        if (selfAdr.getId().toString().equals("3")) {
-            utility += 450;
+    ClassMatchedHandler handleNewsReplica
+            = new ClassMatchedHandler<NewsReplica, KContentMsg<?, ?, NewsReplica>>() {
+        @Override
+        public void handle(NewsReplica content, KContentMsg<?, ?, NewsReplica> container) {
+            Ping newsItem = content.newsItem;
+            if (!leaders.shardLeaders.contains(container.getHeader().getSource())) {
+                return;
+            }
+            replicas.put(newsItem.getKey(), newsItem);
+            if (deliver(newsItem)) {
+                updateLocalNewsView();
+            }
         }
-        if (selfAdr.getId().toString().equals("5")) {
-            utility += 500;
+    };
+
+    ClassMatchedHandler handleNewsNack
+            = new ClassMatchedHandler<NewsNack, KContentMsg<?, ?, NewsNack>>() {
+        @Override
+        public void handle(NewsNack content, KContentMsg<?, ?, NewsNack> container) {
+            if (!validShard(content.shard)) {
+                return;
+            }
+            BatchLog batchLog = shards[content.shard].batchLog;
+            List<NewsBatch> batches = batchLog.covering(content.missing);
+            SeqRangeSet unserved = content.missing;
+            for (NewsBatch batch : batches) {
+                SeqRangeSet served = new SeqRangeSet();
+                served.addRange(batch.firstSeq, batch.endSeq());
+                unserved = unserved.subtract(served);
+            }
+            SeqRangeSet retained = new SeqRangeSet();
+            retained.addRange(batchLog.floor(), Integer.MAX_VALUE);
+            triggerSend(container.getHeader().getSource(), new NewsRepair(content.shard, batches, unserved.subtract(retained)));
         }
-        NewsView localNewsView = new NewsView(selfAdr.getId(), utility);
+    };
+
+    ClassMatchedHandler handleNewsRepair
+            = new ClassMatchedHandler<NewsRepair, KContentMsg<?, ?, NewsRepair>>() {
+        @Override
+        public void handle(NewsRepair content, KContentMsg<?, ?, NewsRepair> container) {
+            if (!validShard(content.shard)) {
+                return;
+            }
+            ShardLog shard = shards[content.shard];
+            KAddress source = container.getHeader().getSource();
+            boolean updated = false;
+            for (NewsBatch batch : content.batches) {
+                if (batch.shard == content.shard) {
+                    updated |= receiveBatch(batch, source, false);
+                }
+            }
+            if (updated) {
+                updateLocalNewsView();
+            }
+            // a peer only knows its own retention, the seqs are given up once a second peer no longer has them
+            SeqRangeSet expired = content.expired.subtract(shard.sequenced);
+            if (!source.equals(shard.expiredBy)) {
+                SeqRangeSet confirmed = expired.intersection(shard.expired);
+                shard.sequenced.addAll(confirmed);
+                expired = expired.subtract(confirmed);
+            }
+            shard.expired = expired;
+            shard.expiredBy = source;
+            KAddress other = randomAcquaintance(source);
+            if (other != null && !expired.isEmpty()) {
+                triggerSend(other, new NewsNack(shard.shard, expired));
+                shard.nacked.addAll(expired);
+            }
+        }
+    };
+
+    //*******************************HELP_FUNCTIONS*****************************
+    private void updateLocalNewsView() {
+        roundActivity = true;
+        advertiseView();
+    }
+
+    private void advertiseView() {
+        // the batches a shard leader sequences are left out, or its rank would drop whenever it is busiest
+        int queueDepth = backlog.size() + inFlight.size();
+        NodeCapacity capacity = new NodeCapacity(newsConfig.cpuCapacity, newsConfig.bandwidthCapacity,
+                System.currentTimeMillis() - startTime, queueDepth);
+        NewsView localNewsView = new NewsView(selfAdr.getId(), newsCount, capacity,
+                utilityFunction.of(newsCount, capacity));
         LOG.debug("{}informing overlays of new view", logPrefix);
         trigger(new OverlayViewUpdate.Indication<>(gradientOId, false, localNewsView.copy()), viewUpdatePort);
     }
 
+    // the pull to the tree parent doubles as the subscription to its batch pushes
     private void newsPull() {
-        Container<KAddress, NewsView> maxRank = Utils.maxRank(acquaintances, suspected);
+        KAddress parent = treeParent();
+        if (parent != null) {
+            triggerSend(parent, new NewsPull(newsDigest(), true));
+            return;
+        }
+        Container<KAddress, NewsView> maxRank = Utils.maxRank(acquaintances, suspicion.suspected);
         if (maxRank != null) {
-            triggerSend(maxRank.getSource(), new NewsPull());
+            triggerSend(maxRank.getSource(), new NewsPull(newsDigest(), false));
+        }
+    }
+
+    private boolean addNews(Ping newsItem) {
+        int originId = NewsKey.originId(newsItem.origin);
+        OriginLog originLog = news.get(originId);
+        if (originLog == null) {
+            originLog = new OriginLog(newsItem.origin);
+            news.put(originId, originLog);
+        }
+        if (originLog.add(newsItem)) {
+            newsCount++;
+            return true;
+        }
+        // a standby only keeps items the replica brought first, once they arrive on any other path
+        // they have spread, and an unsequenced one is retransmitted by its publisher to the next leader
+        replicas.remove(newsItem.getKey());
+        return false;
+    }
+
+    private void scheduleRound(long delay) {
+        ScheduleTimeout st = new ScheduleTimeout(delay);
+        st.setTimeoutEvent(new NewsRoundTimeout(st));
+        trigger(st, timerPort);
+    }
+
+    private ShardLog shardOf(KAddress origin) {
+        return shards[(NewsKey.originId(origin) & Integer.MAX_VALUE) % shards.length];
+    }
+
+    // shard ids arrive from the network, a peer configured with other leader.shards may send any of them
+    private boolean validShard(int shard) {
+        if (shard < 0 || shard >= shards.length) {
+            LOG.warn("{}dropping message for unknown shard:{}", logPrefix, shard);
+            return false;
         }
+        return true;
+    }
+
+    private boolean leads(ShardLog shard) {
+        KAddress shardLeader = leaders.leaderOf(shard.shard);
+        return shardLeader != null && shardLeader.getId().equals(selfAdr.getId());
     }
 
-    private void resend() {
-        for (String newsId : unconfirmed.keySet()) {
-            triggerSend(leaderAdr, unconfirmed.get(newsId));
+    private boolean deliver(Ping newsItem) {
+        if (addNews(newsItem)) {
+            ack(newsItem);
+            spread(newsItem);
+            return true;
         }
+        return false;
+    }
+
+    private void spread(Ping newsItem) {
+        if (newsConfig.rumorFanout > 0 && newsItem.ttl != 0) {
+            rumors.add(hop(newsItem));
+        }
+    }
+
+    // items are shared between receivers, so the decremented ttl goes on a copy. A pull counts as a hop
+    // too, otherwise every pull would hand out a fresh budget and the ttl would no longer bound the spread
+    private Ping hop(Ping newsItem) {
+        if (newsItem.ttl <= 0) {
+            return newsItem; // unlimited, or spent
+        }
+        return new Ping(newsItem.origin, newsItem.seqNum, newsItem.content, newsItem.ttl - 1);
+    }
+
+    private boolean receiveBatch(NewsBatch newsBatch, KAddress source, boolean forward) {
+        ShardLog shard = shards[newsBatch.shard];
+        if (shard.sequenced.intersects(newsBatch.firstSeq, newsBatch.endSeq())) {
+            // batches are atomic, so an overlap is either a batch we already have, or seqs re-issued by a leader
+            // that missed the last batches of its predecessor, whose items must not be lost
+            boolean known = true;
+            for (Ping newsItem : newsBatch.news) {
+                known &= shard.isSequenced(newsItem);
+            }
+            if (known) {
+                return false;
+            }
+        } else {
+            shard.sequenced.addRange(newsBatch.firstSeq, newsBatch.endSeq());
+            shard.batchLog.add(newsBatch);
+        }
+        shard.markSequenced(newsBatch);
+        if (forward) {
+            forwardBatch(newsBatch, source);
+        }
+        boolean updated = false;
+        for (Ping newsItem : newsBatch.news) {
+            if (NewsKey.originId(newsItem.origin) == selfId) {
+                confirm(newsItem.seqNum); // sequenced, whether or not the leader's ack arrives
+            }
+            replicas.remove(newsItem.getKey());
+            updated |= deliver(newsItem);
+        }
+        return updated;
+    }
+
+    // asks target for the global seqs missing between the batches received so far
+    private void repairGaps(ShardLog shard, KAddress target) {
+        SeqRangeSet missing = shard.gaps().subtract(shard.nacked);
+        if (target != null && !missing.isEmpty()) {
+            triggerSend(target, new NewsNack(shard.shard, missing));
+            shard.nacked.addAll(missing);
+        }
+    }
+
+    private KAddress randomAcquaintance(KAddress exclude) {
+        if (acquaintances == null) {
+            return null;
+        }
+        List<KAddress> candidates = new ArrayList<>(Utils.addressSet(acquaintances));
+        candidates.removeAll(suspicion.suspected);
+        candidates.remove(exclude);
+        return candidates.isEmpty() ? null : candidates.get(rand.nextInt(candidates.size()));
+    }
+
+    private void addToBatch(ShardLog shard, Ping newsItem) {
+        shard.batch.add(newsItem);
+        if (shard.batch.size() >= newsConfig.batchSize) {
+            flushBatch(shard);
+        } else if (shard.batchLingerTimeoutId == null) {
+            ScheduleTimeout st = new ScheduleTimeout(newsConfig.batchLinger);
+            BatchLingerTimeout blt = new BatchLingerTimeout(st, shard.shard);
+            st.setTimeoutEvent(blt);
+            trigger(st, timerPort);
+            shard.batchLingerTimeoutId = blt.getTimeoutId();
+        }
+    }
+
+    /**
+     * A new shard leader may have missed the last batches of the old one. Before it issues any seq it asks
+     * its neighbours for the batches above the highest seq it has seen, and continues the order above those.
+     */
+    private void fence(ShardLog shard) {
+        shard.nextGlobalSeq = Math.max(shard.nextGlobalSeq, shard.sequenced.upperBound());
+        Set<KAddress> peers = acquaintances == null ? new HashSet<KAddress>() : Utils.addressSet(acquaintances);
+        peers.removeAll(suspicion.suspected);
+        if (peers.isEmpty()) {
+            return;
+        }
+        SeqRangeSet above = new SeqRangeSet();
+        above.addRange(shard.nextGlobalSeq, Integer.MAX_VALUE);
+        triggerBroadcast(peers, new NewsNack(shard.shard, above));
+
+        ScheduleTimeout st = new ScheduleTimeout(newsConfig.fenceTimeout);
+        FenceTimeout ft = new FenceTimeout(st, shard.shard);
+        st.setTimeoutEvent(ft);
+        trigger(st, timerPort);
+        shard.fenceTimeoutId = ft.getTimeoutId();
+    }
+
+    // standbys are the neighbours most likely to win the takeover election, see LeaderSelectComp
+    private void replicate(Ping newsItem) {
+        if (acquaintances == null) {
+            return;
+        }
+        NewsReplica replica = new NewsReplica(newsItem);
+        for (KAddress standby : Utils.topRanked(acquaintances, newsConfig.standbys, suspicion.suspected)) {
+            triggerSend(standby, replica);
+        }
+    }
+
+    private void flushBatch(ShardLog shard) {
+        if (shard.batchLingerTimeoutId != null) {
+            trigger(new CancelTimeout(shard.batchLingerTimeoutId), timerPort);
+            shard.batchLingerTimeoutId = null;
+        }
+        if (shard.fenceTimeoutId != null) {
+            return; // held until the fence ends
+        }
+        List<Ping> batch = new ArrayList<>();
+        for (Ping newsItem : shard.batch) {
+            if (!shard.isSequenced(newsItem)) {
+                batch.add(newsItem); // the rest came in a batch of the previous leader meanwhile
+            }
+        }
+        shard.batch = new ArrayList<>();
+        if (batch.isEmpty()) {
+            return;
+        }
+        NewsBatch newsBatch = new NewsBatch(shard.shard, shard.nextGlobalSeq, batch);
+        shard.nextGlobalSeq = newsBatch.endSeq();
+        shard.sequenced.addRange(newsBatch.firstSeq, newsBatch.endSeq());
+        shard.batchLog.add(newsBatch);
+        shard.markSequenced(newsBatch);
+
+        AckAggregator publishAcks = new AckAggregator();
+        for (Ping newsItem : newsBatch.news) {
+            publishAcks.ack(newsItem.origin, newsItem.seqNum);
+        }
+        for (Map.Entry<KAddress, SeqRangeSet> e : publishAcks.drain().entrySet()) {
+            triggerSend(e.getKey(), new PublishAck(e.getValue()));
+        }
+        if (newsConfig.treePush) {
+            forwardBatch(newsBatch, selfAdr);
+        } else if (acquaintances != null) {
+            triggerBroadcast(Utils.addressSet(acquaintances), newsBatch);
+        }
+    }
+
+    /**
+     * Every node has one tree parent and pushes batches to its children, so a batch pushed down from the
+     * top reaches everyone in O(tree depth) hops. A batch sequenced below the top, or arriving from a child,
+     * also climbs to the parent, which pushes it down its other branches and passes it further up.
+     */
+    private void forwardBatch(NewsBatch newsBatch, KAddress source) {
+        if (selfView == null) {
+            return;
+        }
+        Set<KAddress> children = treeChildren();
+        Set<KAddress> targets = new HashSet<>(children);
+        KAddress parent = treeParent();
+        if (parent != null && (source.equals(selfAdr) || children.contains(source))) {
+            targets.add(parent);
+        }
+        targets.remove(source);
+        triggerBroadcast(targets, newsBatch);
+    }
+
+    // the highest-ranked neighbour above this node, or the best finger above it if no neighbour is, null at the top
+    private KAddress treeParent() {
+        if (selfView == null || acquaintances == null) {
+            return null;
+        }
+        Container<KAddress, NewsView> parent = Utils.maxRank(acquaintances, suspicion.suspected);
+        if (parent == null || Utils.lowerRanked(acquaintances, selfView).contains(parent.getSource())) {
+            parent = fingers == null ? null : Utils.maxRank(fingers, suspicion.suspected);
+            if (parent != null && Utils.lowerRanked(fingers, selfView).contains(parent.getSource())) {
+                parent = null;
+            }
+        }
+        return parent == null ? null : parent.getSource();
+    }
+
+    // lower-ranked neighbours and fingers, plus every node that pulled from this one as its parent lately
+    private Set<KAddress> treeChildren() {
+        Set<KAddress> children = Utils.lowerRanked(Utils.merge(acquaintances, fingers), selfView);
+        long expired = System.currentTimeMillis() - 2 * newsConfig.maxRoundPeriod;
+        Iterator<Map.Entry<KAddress, Long>> it = treeChildren.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<KAddress, Long> child = it.next();
+            if (child.getValue() < expired) {
+                it.remove();
+            } else {
+                children.add(child.getKey());
+            }
+        }
+        children.removeAll(suspicion.suspected);
+        return children;
+    }
+
+    // Pongs to the same origin are coalesced over one ack window
+    private void ack(Ping newsItem) {
+        if (pendingAcks.isEmpty()) {
+            ScheduleTimeout st = new ScheduleTimeout(newsConfig.ackWindow);
+            st.setTimeoutEvent(new AckFlushTimeout(st));
+            trigger(st, timerPort);
+        }
+        pendingAcks.ack(newsItem.origin, newsItem.seqNum);
+    }
+
+    private Map<Identifier, SeqRangeSet> newsDigest() {
+        Map<Identifier, SeqRangeSet> digest = new HashMap<>();
+        for (int i = 0; i < news.capacity(); i++) {
+            OriginLog originLog = news.valueAt(i);
+            if (originLog != null) {
+                digest.put(originLog.origin.getId(), originLog.seqNums.copy());
+            }
+        }
+        return digest;
+    }
+
+    private List<Ping> missingNews(Map<Identifier, SeqRangeSet> digest) {
+        List<Ping> missing = new ArrayList<>();
+        for (int i = 0; i < news.capacity(); i++) {
+            OriginLog originLog = news.valueAt(i);
+            if (originLog == null) {
+                continue;
+            }
+            SeqRangeSet known = digest.get(originLog.origin.getId());
+            SeqRangeSet delta = known == null ? originLog.seqNums : originLog.seqNums.subtract(known);
+            for (int r = 0; r < delta.ranges(); r++) {
+                for (int seqNum = delta.from(r); seqNum < delta.to(r); seqNum++) {
+                    missing.add(hop(originLog.get(seqNum)));
+                }
+            }
+        }
+        return missing;
+    }
+
+    private void publish(Ping ping) {
+        backlog.add(ping);
+        fillPublishWindow();
+    }
+
+    private void fillPublishWindow() {
+        while (!paused() && inFlight.size() < newsConfig.publishWindow && !backlog.isEmpty()) {
+            Publication publication = new Publication(backlog.poll());
+            inFlight.put(publication.ping.seqNum, publication);
+            transmit(publication);
+        }
+    }
+
+    // no leader for our shard, or one the failure detector suspects: hold publications until a new LeaderUpdate
+    private boolean paused() {
+        KAddress publishLeader = leaders.leaderOf(shardOf(selfAdr).shard);
+        return publishLeader == null || suspicion.isSuspected(publishLeader);
+    }
+
+    // whatever the old leader did not acknowledge goes to the new one straight away
+    private void resume() {
+        if (paused()) {
+            return;
+        }
+        for (Publication publication : inFlight.values()) {
+            trigger(new CancelTimeout(publication.timeoutId), timerPort);
+            publication.attempts = 0;
+            transmit(publication);
+        }
+        fillPublishWindow();
+    }
+
+    private void transmit(Publication publication) {
+        triggerSend(leaders.leaderOf(shardOf(selfAdr).shard), publication.ping);
+
+        ScheduleTimeout st = new ScheduleTimeout(retransmitDelay(publication.attempts));
+        RetransmitTimeout rt = new RetransmitTimeout(st, publication.ping.seqNum);
+        st.setTimeoutEvent(rt);
+        trigger(st, timerPort);
+        publication.timeoutId = rt.getTimeoutId();
+        publication.attempts++;
+    }
+
+    private void confirm(int seqNum) {
+        Publication publication = inFlight.remove(seqNum);
+        if (publication != null) {
+            trigger(new CancelTimeout(publication.timeoutId), timerPort);
+            fillPublishWindow();
+        }
+    }
+
+    // exponential backoff with jitter, so retransmissions of a backlog do not stay in lockstep
+    private long retransmitDelay(int attempts) {
+        long delay = Math.min(newsConfig.maxRetransmitTimeout, newsConfig.retransmitTimeout << Math.min(attempts, 16));
+        double jitter = newsConfig.retransmitJitter * (2 * rand.nextDouble() - 1);
+        return (long) (delay * (1 + jitter));
     }
 
     public static class Init extends se.sics.kompics.Init<NewsComp> {
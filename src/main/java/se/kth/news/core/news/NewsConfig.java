@@ -0,0 +1,42 @@
+package se.kth.news.core.news;
+
+import se.sics.kompics.config.Config;
+
+public class NewsConfig {
+
+    public final long ackWindow;            // ms during which pongs to the same origin are coalesced
+    public final int publishWindow;         // max publications in flight to the leader
+    public final long retransmitTimeout;    // ms before the first retransmission
+    public final long maxRetransmitTimeout; // cap of the exponential backoff
+    public final double retransmitJitter;   // +/- fraction applied to every retransmission timeout
+    public final int batchSize;             // publications the leader sequences as one batch
+    public final long batchLinger;          // ms the leader waits for a batch to fill up
+    public final int batchRetention;        // recent batches every node keeps for gap repair
+    public final long fenceTimeout;         // ms a new shard leader collects the old leader's last batches before sequencing
+    public final boolean treePush;          // forward batches to lower-ranked neighbours and fingers
+    public final int standbys;              // top-ranked neighbours the leader replicates accepted publications to
+    public final int rumorFanout;           // random croupier peers each new item is gossiped to, 0 disables it
+    public final long minRoundPeriod;       // ms between pull/repair rounds while news is flowing
+    public final long maxRoundPeriod;       // ms between pull/repair rounds once quiescent
+    public final double cpuCapacity;        // idle fraction of a core this node offers, 0..1
+    public final double bandwidthCapacity;  // kB/s of upload bandwidth this node offers
+
+    public NewsConfig(Config config) {
+        ackWindow = config.getValue("news.ackWindow", Long.class);
+        publishWindow = config.getValue("news.publishWindow", Integer.class);
+        retransmitTimeout = config.getValue("news.retransmitTimeout", Long.class);
+        maxRetransmitTimeout = config.getValue("news.maxRetransmitTimeout", Long.class);
+        retransmitJitter = config.getValue("news.retransmitJitter", Double.class);
+        batchSize = config.getValue("news.batchSize", Integer.class);
+        batchLinger = config.getValue("news.batchLinger", Long.class);
+        batchRetention = config.getValue("news.batchRetention", Integer.class);
+        fenceTimeout = config.getValue("news.fenceTimeout", Long.class);
+        treePush = config.getValue("news.treePush", Boolean.class);
+        standbys = config.getValue("news.standbys", Integer.class);
+        rumorFanout = config.getValue("news.rumorFanout", Integer.class);
+        minRoundPeriod = config.getValue("news.minRoundPeriod", Long.class);
+        maxRoundPeriod = config.getValue("news.maxRoundPeriod", Long.class);
+        cpuCapacity = config.getValue("news.capacity.cpu", Double.class);
+        bandwidthCapacity = config.getValue("news.capacity.bandwidth", Double.class);
+    }
+}
@@ -0,0 +1,14 @@
+package se.kth.news.core.news;
+
+import se.kth.news.core.news.util.SeqRangeSet;
+
+public class NewsNack {
+
+    public final int shard;
+    public final SeqRangeSet missing; // global seqs the sender has detected as gaps
+
+    public NewsNack(int shard, SeqRangeSet missing) {
+        this.shard = shard;
+        this.missing = missing;
+    }
+}
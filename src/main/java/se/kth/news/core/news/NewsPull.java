@@ -1,5 +1,17 @@
 package se.kth.news.core.news;
 
+import se.kth.news.core.news.util.SeqRangeSet;
+import se.sics.ktoolbox.util.identifiable.Identifier;
+
+import java.util.Map;
+
 public class NewsPull {
 
+    public final Map<Identifier, SeqRangeSet> digest; // origin -> received seqNums
+    public final boolean treeParent;                  // the sender takes the receiver as its batch tree parent
+
+    public NewsPull(Map<Identifier, SeqRangeSet> digest, boolean treeParent) {
+        this.digest = digest;
+        this.treeParent = treeParent;
+    }
 }
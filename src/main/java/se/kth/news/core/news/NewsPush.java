@@ -1,19 +1,14 @@
 package se.kth.news.core.news;
 
-import se.sics.ktoolbox.util.network.KAddress;
+import se.kth.news.newsitem.Ping;
 
-import java.util.Map;
-import java.util.Set;
+import java.util.List;
 
 public class NewsPush {
 
-    public final Set<String> news2;
-    public final Map<String, KAddress> news2KAddress;
-    public final Map<String, Integer> news2SeqNum;
+    public final List<Ping> news; // only the items missing from the puller's digest
 
-    public NewsPush(Set<String> news2, Map<String, KAddress> news2KAddress, Map<String, Integer> news2SeqNum) {
-        this.news2 = news2;
-        this.news2KAddress = news2KAddress;
-        this.news2SeqNum = news2SeqNum;
+    public NewsPush(List<Ping> news) {
+        this.news = news;
     }
 }
@@ -0,0 +1,18 @@
+package se.kth.news.core.news;
+
+import se.kth.news.core.news.util.SeqRangeSet;
+
+import java.util.List;
+
+public class NewsRepair {
+
+    public final int shard;
+    public final List<NewsBatch> batches;
+    public final SeqRangeSet expired; // requested seqs older than anything retained, left to digest pulls
+
+    public NewsRepair(int shard, List<NewsBatch> batches, SeqRangeSet expired) {
+        this.shard = shard;
+        this.batches = batches;
+        this.expired = expired;
+    }
+}
@@ -0,0 +1,15 @@
+package se.kth.news.core.news;
+
+import se.kth.news.newsitem.Ping;
+
+/**
+ * A publication the leader accepted but has not sequenced yet, copied to its standbys.
+ */
+public class NewsReplica {
+
+    public final Ping newsItem;
+
+    public NewsReplica(Ping newsItem) {
+        this.newsItem = newsItem;
+    }
+}
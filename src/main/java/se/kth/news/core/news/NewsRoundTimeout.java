@@ -0,0 +1,11 @@
+package se.kth.news.core.news;
+
+import se.sics.kompics.timer.ScheduleTimeout;
+import se.sics.kompics.timer.Timeout;
+
+public class NewsRoundTimeout extends Timeout {
+
+    protected NewsRoundTimeout(ScheduleTimeout st) {
+        super(st);
+    }
+}
@@ -0,0 +1,14 @@
+package se.kth.news.core.news;
+
+import se.kth.news.newsitem.Ping;
+
+import java.util.List;
+
+public class NewsRumor {
+
+    public final List<Ping> news; // ttl already decremented for this hop
+
+    public NewsRumor(List<Ping> news) {
+        this.news = news;
+    }
+}
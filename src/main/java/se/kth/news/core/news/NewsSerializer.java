@@ -0,0 +1,155 @@
+package se.kth.news.core.news;
+
+import com.google.common.base.Optional;
+import io.netty.buffer.ByteBuf;
+import se.kth.news.core.AddressTable;
+import se.kth.news.core.SerializerHelper;
+import se.kth.news.core.news.util.SeqRangeSet;
+import se.kth.news.newsitem.NewsItemSerializer;
+import se.kth.news.newsitem.Ping;
+import se.sics.kompics.network.netty.serialization.Serializer;
+import se.sics.ktoolbox.util.identifiable.Identifier;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * All dissemination messages: a type byte, then varint counts, shard ids and seqs.
+ * Addresses are interned per message, so lists of news from few origins stay small.
+ */
+public class NewsSerializer implements Serializer {
+
+    private static final int NEWS_PULL = 0;
+    private static final int NEWS_PUSH = 1;
+    private static final int PUBLISH_ACK = 2;
+    private static final int NEWS_BATCH = 3;
+    private static final int NEWS_NACK = 4;
+    private static final int NEWS_REPAIR = 5;
+    private static final int NEWS_RUMOR = 6;
+    private static final int NEWS_REPLICA = 7;
+
+    private final int id;
+
+    public NewsSerializer(int id) {
+        this.id = id;
+    }
+
+    @Override
+    public int identifier() {
+        return id;
+    }
+
+    @Override
+    public void toBinary(Object o, ByteBuf buf) {
+        AddressTable addresses = new AddressTable();
+        if (o instanceof NewsPull) {
+            buf.writeByte(NEWS_PULL);
+            buf.writeBoolean(((NewsPull) o).treeParent);
+            Map<Identifier, SeqRangeSet> digest = ((NewsPull) o).digest;
+            SerializerHelper.writeVarInt(buf, digest.size());
+            for (Map.Entry<Identifier, SeqRangeSet> e : digest.entrySet()) {
+                SerializerHelper.writeIdentifier(buf, e.getKey());
+                SerializerHelper.writeSeqRanges(buf, e.getValue());
+            }
+        } else if (o instanceof NewsPush) {
+            buf.writeByte(NEWS_PUSH);
+            writeNews(buf, ((NewsPush) o).news, addresses);
+        } else if (o instanceof PublishAck) {
+            buf.writeByte(PUBLISH_ACK);
+            SerializerHelper.writeSeqRanges(buf, ((PublishAck) o).seqNums);
+        } else if (o instanceof NewsBatch) {
+            buf.writeByte(NEWS_BATCH);
+            writeBatch(buf, (NewsBatch) o, addresses);
+        } else if (o instanceof NewsNack) {
+            NewsNack nack = (NewsNack) o;
+            buf.writeByte(NEWS_NACK);
+            SerializerHelper.writeVarInt(buf, nack.shard);
+            SerializerHelper.writeSeqRanges(buf, nack.missing);
+        } else if (o instanceof NewsRepair) {
+            NewsRepair repair = (NewsRepair) o;
+            buf.writeByte(NEWS_REPAIR);
+            SerializerHelper.writeVarInt(buf, repair.shard);
+            SerializerHelper.writeVarInt(buf, repair.batches.size());
+            for (NewsBatch batch : repair.batches) {
+                writeBatch(buf, batch, addresses);
+            }
+            SerializerHelper.writeSeqRanges(buf, repair.expired);
+        } else if (o instanceof NewsRumor) {
+            buf.writeByte(NEWS_RUMOR);
+            writeNews(buf, ((NewsRumor) o).news, addresses);
+        } else {
+            buf.writeByte(NEWS_REPLICA);
+            NewsItemSerializer.writePing(buf, ((NewsReplica) o).newsItem, addresses);
+        }
+    }
+
+    @Override
+    public Object fromBinary(ByteBuf buf, Optional<Object> hint) {
+        AddressTable addresses = new AddressTable();
+        int type = buf.readUnsignedByte();
+        switch (type) {
+            case NEWS_PULL:
+                boolean treeParent = buf.readBoolean();
+                int size = SerializerHelper.readVarInt(buf);
+                Map<Identifier, SeqRangeSet> digest = new HashMap<>();
+                for (int i = 0; i < size; i++) {
+                    Identifier origin = SerializerHelper.readIdentifier(buf);
+                    digest.put(origin, SerializerHelper.readSeqRanges(buf));
+                }
+                return new NewsPull(digest, treeParent);
+            case NEWS_PUSH:
+                return new NewsPush(readNews(buf, addresses));
+            case PUBLISH_ACK:
+                return new PublishAck(SerializerHelper.readSeqRanges(buf));
+            case NEWS_BATCH:
+                return readBatch(buf, addresses);
+            case NEWS_NACK:
+                int nackShard = SerializerHelper.readVarInt(buf);
+                return new NewsNack(nackShard, SerializerHelper.readSeqRanges(buf));
+            case NEWS_REPAIR:
+                int repairShard = SerializerHelper.readVarInt(buf);
+                int batches = SerializerHelper.readVarInt(buf);
+                List<NewsBatch> repaired = new ArrayList<>(batches);
+                for (int i = 0; i < batches; i++) {
+                    repaired.add(readBatch(buf, addresses));
+                }
+                return new NewsRepair(repairShard, repaired, SerializerHelper.readSeqRanges(buf));
+            case NEWS_RUMOR:
+                return new NewsRumor(readNews(buf, addresses));
+            case NEWS_REPLICA:
+                return new NewsReplica(NewsItemSerializer.readPing(buf, addresses));
+            default:
+                throw new IllegalArgumentException("unknown news message type:" + type);
+        }
+    }
+
+    private static void writeNews(ByteBuf buf, List<Ping> news, AddressTable addresses) {
+        SerializerHelper.writeVarInt(buf, news.size());
+        for (Ping ping : news) {
+            NewsItemSerializer.writePing(buf, ping, addresses);
+        }
+    }
+
+    private static List<Ping> readNews(ByteBuf buf, AddressTable addresses) {
+        int size = SerializerHelper.readVarInt(buf);
+        List<Ping> news = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            news.add(NewsItemSerializer.readPing(buf, addresses));
+        }
+        return news;
+    }
+
+    private static void writeBatch(ByteBuf buf, NewsBatch batch, AddressTable addresses) {
+        SerializerHelper.writeVarInt(buf, batch.shard);
+        SerializerHelper.writeVarInt(buf, batch.firstSeq);
+        writeNews(buf, batch.news, addresses);
+    }
+
+    private static NewsBatch readBatch(ByteBuf buf, AddressTable addresses) {
+        int shard = SerializerHelper.readVarInt(buf);
+        int firstSeq = SerializerHelper.readVarInt(buf);
+        return new NewsBatch(shard, firstSeq, readNews(buf, addresses));
+    }
+}
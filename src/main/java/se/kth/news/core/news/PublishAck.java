@@ -0,0 +1,12 @@
+package se.kth.news.core.news;
+
+import se.kth.news.core.news.util.SeqRangeSet;
+
+public class PublishAck {
+
+    public final SeqRangeSet seqNums; // publications of the receiving origin accepted by the leader
+
+    public PublishAck(SeqRangeSet seqNums) {
+        this.seqNums = seqNums;
+    }
+}
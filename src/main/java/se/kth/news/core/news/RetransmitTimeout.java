@@ -0,0 +1,14 @@
+package se.kth.news.core.news;
+
+import se.sics.kompics.timer.ScheduleTimeout;
+import se.sics.kompics.timer.Timeout;
+
+public class RetransmitTimeout extends Timeout {
+
+    public final int seqNum;
+
+    protected RetransmitTimeout(ScheduleTimeout st, int seqNum) {
+        super(st);
+        this.seqNum = seqNum;
+    }
+}
@@ -0,0 +1,33 @@
+package se.kth.news.core.news.util;
+
+import se.sics.ktoolbox.util.network.KAddress;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Collects acknowledged seqNums per destination so they can be sent as one range message.
+ */
+public class AckAggregator {
+
+    private Map<KAddress, SeqRangeSet> pending = new HashMap<>(); // destination -> acked seqNums
+
+    public void ack(KAddress destination, int seqNum) {
+        SeqRangeSet acked = pending.get(destination);
+        if (acked == null) {
+            acked = new SeqRangeSet();
+            pending.put(destination, acked);
+        }
+        acked.add(seqNum);
+    }
+
+    public boolean isEmpty() {
+        return pending.isEmpty();
+    }
+
+    public Map<KAddress, SeqRangeSet> drain() {
+        Map<KAddress, SeqRangeSet> drained = pending;
+        pending = new HashMap<>();
+        return drained;
+    }
+}
@@ -0,0 +1,44 @@
+package se.kth.news.core.news.util;
+
+import se.kth.news.core.news.NewsBatch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * The most recent sequenced batches, kept to answer gap repair requests.
+ */
+public class BatchLog {
+
+    private final int retention;
+    private final TreeMap<Integer, NewsBatch> batches = new TreeMap<>(); // first global seq -> batch
+
+    public BatchLog(int retention) {
+        this.retention = retention;
+    }
+
+    public void add(NewsBatch batch) {
+        batches.put(batch.firstSeq, batch);
+        while (batches.size() > retention) {
+            batches.pollFirstEntry();
+        }
+    }
+
+    /**
+     * @return lowest global seq retained, Integer.MIN_VALUE while nothing was received
+     */
+    public int floor() {
+        return batches.isEmpty() ? Integer.MIN_VALUE : batches.firstKey();
+    }
+
+    public List<NewsBatch> covering(SeqRangeSet seqs) {
+        List<NewsBatch> covering = new ArrayList<>();
+        for (NewsBatch batch : batches.values()) {
+            if (seqs.intersects(batch.firstSeq, batch.endSeq())) {
+                covering.add(batch);
+            }
+        }
+        return covering;
+    }
+}
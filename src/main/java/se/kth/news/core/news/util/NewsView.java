@@ -27,15 +27,19 @@ import se.sics.ktoolbox.util.update.View;
 public class NewsView implements View {
 
     public final int localNewsCount;
+    public final NodeCapacity capacity;
+    public final double utility;    //rank in the gradient, see UtilityFunction
     public final Identifier nodeId; //view tie breaker
 
-    public NewsView(Identifier nodeId, int localNewsCount) {
+    public NewsView(Identifier nodeId, int localNewsCount, NodeCapacity capacity, double utility) {
         this.nodeId = nodeId;
         this.localNewsCount = localNewsCount;
+        this.capacity = capacity;
+        this.utility = utility;
     }
 
     public NewsView copy() {
-        return new NewsView(nodeId, localNewsCount);
+        return new NewsView(nodeId, localNewsCount, capacity, utility);
     }
 
     @Override
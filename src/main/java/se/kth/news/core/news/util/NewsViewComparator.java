@@ -18,7 +18,7 @@
  */
 package se.kth.news.core.news.util;
 
-import com.google.common.primitives.Ints;
+import com.google.common.primitives.Doubles;
 
 import java.util.Comparator;
 
@@ -35,8 +35,8 @@ public class NewsViewComparator implements Comparator<NewsView> {
         if (o1 == null || o2 == null) {
             throw new NullPointerException();
         }
-        if (o1.localNewsCount != o2.localNewsCount) {
-            return Ints.compare(o1.localNewsCount, o2.localNewsCount);
+        if (o1.utility != o2.utility) {
+            return Doubles.compare(o1.utility, o2.utility);
         }
         return o1.nodeId.compareTo(o2.nodeId);
     }
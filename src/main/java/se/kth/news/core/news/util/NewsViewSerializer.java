@@ -0,0 +1,33 @@
+package se.kth.news.core.news.util;
+
+import com.google.common.base.Optional;
+import io.netty.buffer.ByteBuf;
+import se.kth.news.core.SerializerHelper;
+import se.sics.kompics.network.netty.serialization.Serializer;
+
+/**
+ * The view content of croupier and gradient samples, sent with every shuffle.
+ */
+public class NewsViewSerializer implements Serializer {
+
+    private final int id;
+
+    public NewsViewSerializer(int id) {
+        this.id = id;
+    }
+
+    @Override
+    public int identifier() {
+        return id;
+    }
+
+    @Override
+    public void toBinary(Object o, ByteBuf buf) {
+        SerializerHelper.writeView(buf, (NewsView) o);
+    }
+
+    @Override
+    public Object fromBinary(ByteBuf buf, Optional<Object> hint) {
+        return SerializerHelper.readView(buf);
+    }
+}
@@ -0,0 +1,24 @@
+package se.kth.news.core.news.util;
+
+/**
+ * What a node can currently offer, advertised with its view so the heaviest roles go to capable nodes.
+ */
+public class NodeCapacity {
+
+    public final double spareCpu;  // fraction of a core that is idle, 0..1
+    public final double bandwidth; // available upload bandwidth in kB/s
+    public final long uptime;      // ms since the node started
+    public final int queueDepth;   // own publications waiting to be sent or acknowledged
+
+    public NodeCapacity(double spareCpu, double bandwidth, long uptime, int queueDepth) {
+        this.spareCpu = spareCpu;
+        this.bandwidth = bandwidth;
+        this.uptime = uptime;
+        this.queueDepth = queueDepth;
+    }
+
+    @Override
+    public String toString() {
+        return "cpu:" + spareCpu + " bw:" + bandwidth + " up:" + uptime + " q:" + queueDepth;
+    }
+}
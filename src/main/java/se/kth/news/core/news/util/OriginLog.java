@@ -0,0 +1,41 @@
+package se.kth.news.core.news.util;
+
+import se.kth.news.newsitem.Ping;
+import se.sics.ktoolbox.util.network.KAddress;
+
+/**
+ * Everything a node knows about the news of one origin: the received seqNums as
+ * ranges, plus the payloads of the few items that actually carry one.
+ */
+public class OriginLog {
+
+    public final KAddress origin;
+    public final SeqRangeSet seqNums = new SeqRangeSet();
+    private final LongObjectMap<String> contents = new LongObjectMap<>(); // seqNum -> payload, only if not null
+    private final LongObjectMap<Integer> ttls = new LongObjectMap<>();    // seqNum -> hops left, only if hop-limited
+
+    public OriginLog(KAddress origin) {
+        this.origin = origin;
+    }
+
+    public boolean add(Ping newsItem) {
+        if (!seqNums.add(newsItem.seqNum)) {
+            return false;
+        }
+        if (newsItem.content != null) {
+            contents.put(newsItem.seqNum, newsItem.content);
+        }
+        if (newsItem.ttl >= 0) {
+            ttls.put(newsItem.seqNum, newsItem.ttl);
+        }
+        return true;
+    }
+
+    /**
+     * @return the item with the ttl it arrived with, negative if it is not hop-limited
+     */
+    public Ping get(int seqNum) {
+        Integer ttl = ttls.get(seqNum);
+        return new Ping(origin, seqNum, contents.get(seqNum), ttl == null ? -1 : ttl);
+    }
+}
@@ -0,0 +1,19 @@
+package se.kth.news.core.news.util;
+
+import se.kth.news.newsitem.Ping;
+
+import java.util.UUID;
+
+/**
+ * A publication sent to the leader and not yet acknowledged.
+ */
+public class Publication {
+
+    public final Ping ping;
+    public int attempts = 0;
+    public UUID timeoutId;
+
+    public Publication(Ping ping) {
+        this.ping = ping;
+    }
+}
@@ -0,0 +1,200 @@
+package se.kth.news.core.news.util;
+
+import java.util.Arrays;
+
+/**
+ * Set of sequence numbers kept as sorted, disjoint, half-open [from, to) intervals.
+ * Memory grows with the number of gaps, not with the number of members.
+ */
+public class SeqRangeSet {
+
+    private int[] bounds; // from0, to0, from1, to1, ...
+    private int ranges;
+
+    public SeqRangeSet() {
+        this(new int[4], 0);
+    }
+
+    private SeqRangeSet(int[] bounds, int ranges) {
+        this.bounds = bounds;
+        this.ranges = ranges;
+    }
+
+    public static SeqRangeSet of(int seqNum) {
+        SeqRangeSet set = new SeqRangeSet();
+        set.add(seqNum);
+        return set;
+    }
+
+    public int ranges() {
+        return ranges;
+    }
+
+    public int from(int range) {
+        return bounds[2 * range];
+    }
+
+    public int to(int range) {
+        return bounds[2 * range + 1];
+    }
+
+    public boolean isEmpty() {
+        return ranges == 0;
+    }
+
+    public int size() {
+        int size = 0;
+        for (int r = 0; r < ranges; r++) {
+            size += to(r) - from(r);
+        }
+        return size;
+    }
+
+    /**
+     * @return one past the highest member, 0 if the set is empty
+     */
+    public int upperBound() {
+        return ranges == 0 ? 0 : to(ranges - 1);
+    }
+
+    public boolean contains(int seqNum) {
+        int r = floorRange(seqNum);
+        return r >= 0 && seqNum < to(r);
+    }
+
+    /**
+     * @return true if any member lies in [from, to)
+     */
+    public boolean intersects(int from, int to) {
+        int r = floorRange(to - 1);
+        return from < to && r >= 0 && to(r) > from;
+    }
+
+    public boolean add(int seqNum) {
+        if (contains(seqNum)) {
+            return false;
+        }
+        addRange(seqNum, seqNum + 1);
+        return true;
+    }
+
+    public void addRange(int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        // ranges [first, last] overlap or touch [from, to) and collapse into one
+        int first = floorRange(from);
+        if (first < 0 || to(first) < from) {
+            first++;
+        }
+        int last = floorRange(to);
+        if (first <= last) {
+            from = Math.min(from, from(first));
+            to = Math.max(to, to(last));
+        }
+        int delta = 1 - (last - first + 1);
+        if (2 * (ranges + delta) > bounds.length) {
+            bounds = Arrays.copyOf(bounds, Math.max(2 * bounds.length, 2 * (ranges + delta)));
+        }
+        System.arraycopy(bounds, 2 * (last + 1), bounds, 2 * (first + 1), 2 * (ranges - last - 1));
+        bounds[2 * first] = from;
+        bounds[2 * first + 1] = to;
+        ranges += delta;
+    }
+
+    public void addAll(SeqRangeSet other) {
+        for (int r = 0; r < other.ranges; r++) {
+            addRange(other.from(r), other.to(r));
+        }
+    }
+
+    /**
+     * @return the members of this set that are not in other
+     */
+    public SeqRangeSet subtract(SeqRangeSet other) {
+        SeqRangeSet result = new SeqRangeSet();
+        int j = 0;
+        for (int i = 0; i < ranges; i++) {
+            int from = from(i);
+            int to = to(i);
+            while (j < other.ranges && other.to(j) <= from) {
+                j++;
+            }
+            for (int k = j; from < to && k < other.ranges && other.from(k) < to; k++) {
+                if (other.from(k) > from) {
+                    result.append(from, other.from(k));
+                }
+                from = Math.max(from, other.to(k));
+            }
+            if (from < to) {
+                result.append(from, to);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the members of this set that are also in other
+     */
+    public SeqRangeSet intersection(SeqRangeSet other) {
+        return subtract(subtract(other));
+    }
+
+    /**
+     * @return the holes between lowest and the highest member, lowest included
+     */
+    public SeqRangeSet gaps(int lowest) {
+        SeqRangeSet gaps = new SeqRangeSet();
+        int last = lowest;
+        for (int r = 0; r < ranges; r++) {
+            if (from(r) > last) {
+                gaps.append(last, from(r));
+            }
+            last = Math.max(last, to(r));
+        }
+        return gaps;
+    }
+
+    public SeqRangeSet copy() {
+        return new SeqRangeSet(Arrays.copyOf(bounds, Math.max(2, 2 * ranges)), ranges);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int r = 0; r < ranges; r++) {
+            if (r > 0) {
+                sb.append(",");
+            }
+            sb.append(from(r)).append("-").append(to(r) - 1);
+        }
+        return sb.append("]").toString();
+    }
+
+    // index of the last range starting at or before seqNum, -1 if there is none
+    private int floorRange(int seqNum) {
+        int lo = 0;
+        int hi = ranges - 1;
+        int floor = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (from(mid) <= seqNum) {
+                floor = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return floor;
+    }
+
+    // caller guarantees from is past every existing range
+    private void append(int from, int to) {
+        if (2 * (ranges + 1) > bounds.length) {
+            bounds = Arrays.copyOf(bounds, 2 * bounds.length);
+        }
+        bounds[2 * ranges] = from;
+        bounds[2 * ranges + 1] = to;
+        ranges++;
+    }
+}
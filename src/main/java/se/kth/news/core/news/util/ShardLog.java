@@ -0,0 +1,72 @@
+package se.kth.news.core.news.util;
+
+import se.kth.news.core.news.NewsBatch;
+import se.kth.news.newsitem.NewsKey;
+import se.kth.news.newsitem.Ping;
+import se.sics.ktoolbox.util.network.KAddress;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Sequencing state of one publication shard. Every shard has its own global seq space,
+ * so shards led by different nodes are ordered independently of each other.
+ */
+public class ShardLog {
+
+    public static final int FIRST_SEQ = 0; // every shard's global order starts here
+
+    public final int shard;
+    public final BatchLog batchLog;
+    public SeqRangeSet sequenced = new SeqRangeSet();  // global seqs received in batches
+    public SeqRangeSet nacked = new SeqRangeSet();     // gaps already requested this round
+    public SeqRangeSet expired = new SeqRangeSet();    // reported unavailable by expiredBy, not given up yet
+    public KAddress expiredBy;
+    public int nextGlobalSeq = FIRST_SEQ;              // shard leader only
+    public List<Ping> batch = new ArrayList<>();       // shard leader only, publications not yet sequenced
+    public UUID batchLingerTimeoutId;
+    public UUID fenceTimeoutId;                        // new shard leader only, set until it knows the seqs issued before it
+    private LongObjectMap<SeqRangeSet> published = new LongObjectMap<>(); // origin id -> origin seqNums sequenced
+
+    public ShardLog(int shard, int batchRetention) {
+        this.shard = shard;
+        this.batchLog = new BatchLog(batchRetention);
+    }
+
+    /**
+     * @return true if the item was sequenced in a batch of this shard, by any of its leaders
+     */
+    public boolean isSequenced(Ping newsItem) {
+        SeqRangeSet seqNums = published.get(NewsKey.originId(newsItem.origin));
+        return seqNums != null && seqNums.contains(newsItem.seqNum);
+    }
+
+    /**
+     * @return the global seqs missing up to the highest received, a prefix below the first received batch included
+     */
+    public SeqRangeSet gaps() {
+        return sequenced.gaps(FIRST_SEQ);
+    }
+
+    public void markSequenced(NewsBatch newsBatch) {
+        for (Ping newsItem : newsBatch.news) {
+            int originId = NewsKey.originId(newsItem.origin);
+            SeqRangeSet seqNums = published.get(originId);
+            if (seqNums == null) {
+                seqNums = new SeqRangeSet();
+                published.put(originId, seqNums);
+            }
+            seqNums.add(newsItem.seqNum);
+        }
+    }
+
+    public boolean isBatched(Ping newsItem) {
+        for (Ping batched : batch) {
+            if (batched.getKey() == newsItem.getKey()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,32 @@
+package se.kth.news.core.news.util;
+
+import se.sics.kompics.config.Config;
+
+/**
+ * Weighted sum of news count and capacity metrics. Every node uses the same weights,
+ * so utilities computed locally are comparable across the overlay.
+ */
+public class UtilityFunction {
+
+    public final double newsWeight;      // per news item held
+    public final double cpuWeight;       // per fraction of an idle core
+    public final double bandwidthWeight; // per kB/s of upload bandwidth
+    public final double uptimeWeight;    // per second of uptime
+    public final double queueWeight;     // subtracted per own publication not yet acknowledged
+
+    public UtilityFunction(Config config) {
+        newsWeight = config.getValue("news.utility.newsWeight", Double.class);
+        cpuWeight = config.getValue("news.utility.cpuWeight", Double.class);
+        bandwidthWeight = config.getValue("news.utility.bandwidthWeight", Double.class);
+        uptimeWeight = config.getValue("news.utility.uptimeWeight", Double.class);
+        queueWeight = config.getValue("news.utility.queueWeight", Double.class);
+    }
+
+    public double of(int newsCount, NodeCapacity capacity) {
+        return newsWeight * newsCount
+                + cpuWeight * capacity.spareCpu
+                + bandwidthWeight * capacity.bandwidth
+                + uptimeWeight * capacity.uptime / 1000
+                - queueWeight * capacity.queueDepth;
+    }
+}
@@ -0,0 +1,62 @@
+package se.kth.news.newsitem;
+
+import com.google.common.base.Optional;
+import io.netty.buffer.ByteBuf;
+import se.kth.news.core.AddressTable;
+import se.kth.news.core.SerializerHelper;
+import se.sics.kompics.network.netty.serialization.Serializer;
+
+/**
+ * Ping: origin | seqNum (varint) | content | ttl (zigzag varint)
+ * Pong: seqNums as ranges
+ */
+public class NewsItemSerializer implements Serializer {
+
+    private static final int PING = 0;
+    private static final int PONG = 1;
+
+    private final int id;
+
+    public NewsItemSerializer(int id) {
+        this.id = id;
+    }
+
+    @Override
+    public int identifier() {
+        return id;
+    }
+
+    @Override
+    public void toBinary(Object o, ByteBuf buf) {
+        if (o instanceof Ping) {
+            buf.writeByte(PING);
+            writePing(buf, (Ping) o, new AddressTable());
+        } else {
+            buf.writeByte(PONG);
+            SerializerHelper.writeSeqRanges(buf, ((Pong) o).seqNums);
+        }
+    }
+
+    @Override
+    public Object fromBinary(ByteBuf buf, Optional<Object> hint) {
+        if (buf.readUnsignedByte() == PING) {
+            return readPing(buf, new AddressTable());
+        }
+        return new Pong(SerializerHelper.readSeqRanges(buf));
+    }
+
+    /**
+     * Shared by the messages carrying lists of news, where the table collapses repeated origins.
+     */
+    public static void writePing(ByteBuf buf, Ping ping, AddressTable addresses) {
+        addresses.write(buf, ping.origin);
+        SerializerHelper.writeVarInt(buf, ping.seqNum);
+        SerializerHelper.writeString(buf, ping.content);
+        SerializerHelper.writeSignedVarInt(buf, ping.ttl);
+    }
+
+    public static Ping readPing(ByteBuf buf, AddressTable addresses) {
+        return new Ping(addresses.read(buf), SerializerHelper.readVarInt(buf),
+                SerializerHelper.readString(buf), SerializerHelper.readSignedVarInt(buf));
+    }
+}
@@ -0,0 +1,26 @@
+package se.kth.news.newsitem;
+
+import se.sics.ktoolbox.util.identifiable.basic.IntIdentifier;
+import se.sics.ktoolbox.util.network.KAddress;
+
+/**
+ * A news item identified by (origin id, seqNum) packed into a single long.
+ */
+public class NewsKey {
+
+    public static long pack(int originId, int seqNum) {
+        return ((long) originId << 32) | (seqNum & 0xFFFFFFFFL);
+    }
+
+    public static int originId(long key) {
+        return (int) (key >>> 32);
+    }
+
+    public static int seqNum(long key) {
+        return (int) key;
+    }
+
+    public static int originId(KAddress adr) {
+        return ((IntIdentifier) adr.getId()).id;
+    }
+}
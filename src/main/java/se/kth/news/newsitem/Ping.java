@@ -24,7 +24,7 @@ public class Ping {
     public final KAddress origin;
     public final int seqNum;
     public final String content;
-    public int ttl;
+    public int ttl; // hops left when gossiped, negative for no limit
 
     public Ping(KAddress origin, int seqNum, String content, int ttl) {
         this.origin = origin;
@@ -33,7 +33,7 @@ public class Ping {
         this.ttl = ttl;
     }
 
-    public String getIdentifier() {
-        return origin.getId() + ":" + seqNum;
+    public long getKey() {
+        return NewsKey.pack(NewsKey.originId(origin), seqNum);
     }
 }
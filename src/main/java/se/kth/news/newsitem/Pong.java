@@ -17,11 +17,13 @@
  */
 package se.kth.news.newsitem;
 
+import se.kth.news.core.news.util.SeqRangeSet;
+
 public class Pong {
 
-    public final int seqNum;
+    public final SeqRangeSet seqNums; // all acknowledged news of the receiving origin
 
-    public Pong(int seqNum) {
-        this.seqNum = seqNum;
+    public Pong(SeqRangeSet seqNums) {
+        this.seqNums = seqNums;
     }
 }
@@ -118,6 +118,13 @@ public class ScenarioGen {
                     nodeConfig.put("system.id", nodeId);
                     nodeConfig.put("system.seed", ScenarioSetup.getNodeSeed(nodeId));
                     nodeConfig.put("system.port", ScenarioSetup.appPort);
+                    // two well-provisioned nodes, so the gradient center and the leader settle on them
+                    if (nodeId == 3) {
+                        nodeConfig.put("news.capacity.bandwidth", 450.0);
+                    }
+                    if (nodeId == 5) {
+                        nodeConfig.put("news.capacity.bandwidth", 500.0);
+                    }
                     return nodeConfig;
                 }
             };
@@ -0,0 +1,68 @@
+/*
+ * 2016 Royal Institute of Technology (KTH)
+ *
+ * LSelector is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package se.kth.news.system;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import se.sics.kompics.config.Config;
+import se.sics.ktoolbox.util.identifiable.Identifier;
+import se.sics.ktoolbox.util.identifiable.basic.IntIdentifier;
+import se.sics.ktoolbox.util.identifiable.basic.OverlayIdFactory;
+import se.sics.ktoolbox.util.network.KAddress;
+import se.sics.ktoolbox.util.network.basic.BasicAddress;
+import se.sics.ktoolbox.util.network.nat.NatAwareAddressImpl;
+
+/**
+ * What ScenarioSetup hard-codes for the simulation, read from the config of a deployed host.
+ */
+public class HostConfig {
+
+    public final KAddress selfAdr;
+    public final KAddress bootstrapServer;
+    public final byte overlayOwner;
+    public final Identifier overlayId;
+    public final int schedulerThreads; // 0 for one per core
+
+    public HostConfig(Config config) {
+        selfAdr = address(config.getValue("host.ip", String.class),
+                config.getValue("system.port", Integer.class), config.getValue("system.id", Integer.class));
+        bootstrapServer = address(config.getValue("host.bootstrap.ip", String.class),
+                config.getValue("host.bootstrap.port", Integer.class), config.getValue("host.bootstrap.id", Integer.class));
+        overlayOwner = config.getValue("host.overlay.owner", Integer.class).byteValue();
+        int overlay = config.getValue("host.overlay.id", Integer.class);
+        overlayId = OverlayIdFactory.getId(overlayOwner, OverlayIdFactory.Type.TGRADIENT,
+                new byte[]{(byte) (overlay >>> 16), (byte) (overlay >>> 8), (byte) overlay});
+        int threads = config.getValue("host.schedulerThreads", Integer.class);
+        schedulerThreads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * @return true if this host is the bootstrap server instead of a news node
+     */
+    public boolean isBootstrapServer() {
+        return selfAdr.equals(bootstrapServer);
+    }
+
+    private static KAddress address(String ip, int port, int id) {
+        try {
+            return NatAwareAddressImpl.open(new BasicAddress(InetAddress.getByName(ip), port, new IntIdentifier(id)));
+        } catch (UnknownHostException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * 2016 Royal Institute of Technology (KTH)
+ *
+ * LSelector is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package se.kth.news.system;
+
+import se.kth.news.core.NewsSerializerSetup;
+import se.sics.kompics.Kompics;
+import se.sics.kompics.scheduler.ThreadPoolScheduler;
+import se.sics.ktoolbox.croupier.CroupierSerializerSetup;
+import se.sics.ktoolbox.gradient.GradientSerializerSetup;
+import se.sics.ktoolbox.omngr.OMngrSerializerSetup;
+import se.sics.ktoolbox.util.overlays.id.OverlayIdRegistry;
+import se.sics.ktoolbox.util.setup.BasicSerializerSetup;
+
+/**
+ * Runs one host on the real network, the counterpart of SimLauncher for deployments.
+ */
+public class HostLauncher {
+
+    // ids below are left to kompics itself
+    private static final int SERIALIZER_START_ID = 128;
+
+    public static void main(String[] args) throws InterruptedException {
+        HostConfig hostConfig = new HostConfig(Kompics.getConfig());
+
+        int serializerId = SERIALIZER_START_ID;
+        serializerId = BasicSerializerSetup.registerBasicSerializers(serializerId);
+        serializerId = CroupierSerializerSetup.registerSerializers(serializerId);
+        serializerId = GradientSerializerSetup.registerSerializers(serializerId);
+        serializerId = OMngrSerializerSetup.registerSerializers(serializerId);
+        NewsSerializerSetup.registerSerializers(serializerId);
+        NewsSerializerSetup.checkSetup();
+
+        OverlayIdRegistry.registerPrefix("newsApp", hostConfig.overlayOwner);
+
+        Kompics.setScheduler(new ThreadPoolScheduler(hostConfig.schedulerThreads));
+        Kompics.createAndStart(HostLauncherComp.class);
+        Kompics.waitForTermination();
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * 2016 Royal Institute of Technology (KTH)
+ *
+ * LSelector is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package se.kth.news.system;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import se.sics.kompics.Channel;
+import se.sics.kompics.Component;
+import se.sics.kompics.ComponentDefinition;
+import se.sics.kompics.Handler;
+import se.sics.kompics.Init;
+import se.sics.kompics.Start;
+import se.sics.kompics.network.Network;
+import se.sics.kompics.network.netty.NettyInit;
+import se.sics.kompics.network.netty.NettyNetwork;
+import se.sics.kompics.timer.Timer;
+import se.sics.kompics.timer.java.JavaTimer;
+import se.sics.ktoolbox.omngr.bootstrap.BootstrapServerComp;
+
+/**
+ * Root of a deployed host: provides the real timer and network the simulator provides otherwise,
+ * and runs either the bootstrap server or a news node on top of them.
+ */
+public class HostLauncherComp extends ComponentDefinition {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HostLauncherComp.class);
+    private String logPrefix = " ";
+
+    //***************************EXTERNAL_STATE*********************************
+    private HostConfig hostConfig;
+    //***************************INTERNAL_STATE*********************************
+    private Component timerComp;
+    private Component networkComp;
+    private Component hostComp;
+
+    public HostLauncherComp() {
+        hostConfig = new HostConfig(config());
+        logPrefix = "<nid:" + hostConfig.selfAdr.getId() + ">";
+        LOG.info("{}initiating with address:{} bootstrap:{}", new Object[]{logPrefix, hostConfig.selfAdr,
+            hostConfig.bootstrapServer});
+
+        subscribe(handleStart, control);
+    }
+
+    Handler handleStart = new Handler<Start>() {
+        @Override
+        public void handle(Start event) {
+            LOG.debug("{}starting...", logPrefix);
+            timerComp = create(JavaTimer.class, Init.NONE);
+            networkComp = create(NettyNetwork.class, new NettyInit(hostConfig.selfAdr));
+            if (hostConfig.isBootstrapServer()) {
+                hostComp = create(BootstrapServerComp.class, new BootstrapServerComp.Init(hostConfig.selfAdr));
+            } else {
+                hostComp = create(HostMngrComp.class, new HostMngrComp.Init(hostConfig.selfAdr,
+                        hostConfig.bootstrapServer, hostConfig.overlayId));
+            }
+            connect(hostComp.getNegative(Timer.class), timerComp.getPositive(Timer.class), Channel.TWO_WAY);
+            connect(hostComp.getNegative(Network.class), networkComp.getPositive(Network.class), Channel.TWO_WAY);
+
+            trigger(Start.event, timerComp.control());
+            trigger(Start.event, networkComp.control());
+            trigger(Start.event, hostComp.control());
+        }
+    };
+}